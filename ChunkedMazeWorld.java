@@ -0,0 +1,222 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// MazeView of any size that is never stored whole: it is cut into CHUNK x CHUNK chunks, each one a maze
+// generated from (world seed, chunk position) the first time one of its cells is read. only the most recently
+// used chunks are kept (at most maxChunks), an evicted chunk is simply generated again, identically, when needed.
+//
+// every chunk is a connected maze on its own (MazeGenerator with the world's Tuning) whose outer walls stay
+// standing, except for a few openings in its right and bottom edge picked from the same chunk seed. chunk
+// edges therefore always line up the same way, and any rectangle of whole chunks is connected, which is why
+// the size is always rounded up to whole chunks.
+//
+// the size of a world never changes: grow returns a bigger world sharing the same chunk cache, so growing
+// costs only the chunks that actually get looked at. walls can't be edited, they'd be lost on eviction.
+// a world (and the worlds grown from it) can be read from several threads at once.
+public class ChunkedMazeWorld implements MazeView {
+    static final int CHUNK_SHIFT = 6;
+    static final int CHUNK = 1 << CHUNK_SHIFT; // 64 x 64 cells, 1KB of walls
+    private static final int CHUNK_MASK = CHUNK - 1;
+    private static final int SEAM_OPENINGS = 4; // 1 to 4 openings per chunk edge
+    static final int DEFAULT_MAX_CHUNKS = 4096; // 16M cells worth, about 4MB
+
+    private final int rows, cols;
+    private final Chunks chunks;
+
+    public ChunkedMazeWorld(int rows, int cols, long seed) {
+        this(rows, cols, seed, Tuning.DEFAULT, DEFAULT_MAX_CHUNKS);
+    }
+
+    ChunkedMazeWorld(int rows, int cols, long seed, Tuning tuning, int maxChunks) {
+        this(rows, cols, new Chunks(seed, tuning, maxChunks));
+    }
+
+    private ChunkedMazeWorld(int rows, int cols, Chunks chunks) {
+        this.rows = roundUp(rows);
+        this.cols = roundUp(cols);
+        this.chunks = chunks;
+    }
+
+    // at least extraRows / extraCols more (rounded up to whole chunks), same walls everywhere else
+    ChunkedMazeWorld grow(int extraRows, int extraCols) {
+        return new ChunkedMazeWorld(rows + extraRows, cols + extraCols, chunks);
+    }
+
+    static int roundUp(int cells) {
+        return Math.max(CHUNK, (cells + CHUNK_MASK) & ~CHUNK_MASK);
+    }
+
+    @Override public int rows() { return rows; }
+    @Override public int cols() { return cols; }
+
+    @Override
+    public boolean hasRightWall(int r, int c) {
+        if (c == cols - 1) return true; // edge of the world, the chunk's seam only opens once the world grows
+        return chunks.get(r >> CHUNK_SHIFT, c >> CHUNK_SHIFT).hasRightWall(r & CHUNK_MASK, c & CHUNK_MASK);
+    }
+
+    @Override
+    public boolean hasBottomWall(int r, int c) {
+        if (r == rows - 1) return true;
+        return chunks.get(r >> CHUNK_SHIFT, c >> CHUNK_SHIFT).hasBottomWall(r & CHUNK_MASK, c & CHUNK_MASK);
+    }
+
+    // the rectangle of chunks cr0..cr1 x cc0..cc1 (inclusive) as a maze of its own, its cell (r, c) is this world's
+    // (cr0 * CHUNK + r, cc0 * CHUNK + c). whole chunks, so it's connected like the world is
+    Window window(int cr0, int cc0, int cr1, int cc1) {
+        return new Window(this, cr0 << CHUNK_SHIFT, cc0 << CHUNK_SHIFT,
+                (cr1 - cr0 + 1) << CHUNK_SHIFT, (cc1 - cc0 + 1) << CHUNK_SHIFT);
+    }
+
+    static final class Window implements MazeView {
+        final ChunkedMazeWorld world;
+        final int r0, c0; // world position of the window's top-left cell
+        private final int rows, cols;
+
+        private Window(ChunkedMazeWorld world, int r0, int c0, int rows, int cols) {
+            this.world = world;
+            this.r0 = r0;
+            this.c0 = c0;
+            this.rows = rows;
+            this.cols = cols;
+        }
+
+        boolean contains(int r, int c) {
+            return r >= r0 && r < r0 + rows && c >= c0 && c < c0 + cols;
+        }
+
+        @Override public int rows() { return rows; }
+        @Override public int cols() { return cols; }
+
+        @Override
+        public boolean hasRightWall(int r, int c) {
+            return c == cols - 1 || world.hasRightWall(r0 + r, c0 + c);
+        }
+
+        @Override
+        public boolean hasBottomWall(int r, int c) {
+            return r == rows - 1 || world.hasBottomWall(r0 + r, c0 + c);
+        }
+    }
+
+    // chunks generated so far, including ones generated again after eviction
+    long generatedChunks() {
+        return chunks.generated;
+    }
+
+    // a generated chunk, never changed after it's built
+    private static final class Chunk {
+        final long key;
+        final MazeGrid walls;
+
+        Chunk(long key, MazeGrid walls) {
+            this.key = key;
+            this.walls = walls;
+        }
+    }
+
+    // the LRU chunk cache: an open addressing table from chunk key to cache slot, and per slot the chunk and
+    // when it was last used. once all slots are taken the least recently used one is recycled, like the tile
+    // cache in GamePanel. lookups that hit the chunk of the previous lookup skip the lock entirely.
+    private static final class Chunks {
+        private final long seed;
+        private final Tuning tuning;
+        private volatile Chunk last;
+
+        private final Chunk[] slots;
+        private final long[] lastUsed;
+        private int used = 0;
+        private long clock = 0;
+        private volatile long generated = 0;
+
+        private final long[] tableKeys;
+        private final int[] tableSlot; // -1 = empty
+        private final int mask;
+
+        Chunks(long seed, Tuning tuning, int maxChunks) {
+            this.seed = seed;
+            this.tuning = tuning;
+            slots = new Chunk[Math.max(4, maxChunks)];
+            lastUsed = new long[slots.length];
+            int size = Integer.highestOneBit(slots.length * 2 - 1) * 2; // power of two, at most half full
+            tableKeys = new long[size];
+            tableSlot = new int[size];
+            Arrays.fill(tableSlot, -1);
+            mask = size - 1;
+        }
+
+        MazeGrid get(int cr, int cc) {
+            long key = (long) cr << 32 | (cc & 0xFFFFFFFFL);
+            Chunk chunk = last;
+            if (chunk != null && chunk.key == key) return chunk.walls;
+            return lookup(key);
+        }
+
+        private synchronized MazeGrid lookup(long key) {
+            int slot;
+            int i = find(key);
+            if (i >= 0) {
+                slot = tableSlot[i];
+            } else {
+                if (used < slots.length) {
+                    slot = used++;
+                } else {
+                    slot = 0;
+                    for (int s = 1; s < slots.length; s++) {
+                        if (lastUsed[s] < lastUsed[slot]) slot = s;
+                    }
+                    remove(find(slots[slot].key));
+                }
+                slots[slot] = new Chunk(key, generate(key));
+                insert(key, slot);
+            }
+            lastUsed[slot] = ++clock;
+            last = slots[slot];
+            return slots[slot].walls;
+        }
+
+        // the chunk's maze, then its seam openings, all from one stream seeded by (world seed, chunk key)
+        private MazeGrid generate(long key) {
+            generated++;
+            SplittableRandom rnd = new SplittableRandom(MazeGeneratorA.mixSeed(seed, key));
+            MazeGrid walls = MazeGenerator.generateMaze(CHUNK, CHUNK, rnd.nextLong(), false, tuning);
+            int right = 1 + rnd.nextInt(SEAM_OPENINGS);
+            for (int i = 0; i < right; i++) walls.setRightWall(rnd.nextInt(CHUNK), CHUNK - 1, false);
+            int bottom = 1 + rnd.nextInt(SEAM_OPENINGS);
+            for (int i = 0; i < bottom; i++) walls.setBottomWall(CHUNK - 1, rnd.nextInt(CHUNK), false);
+            return walls;
+        }
+
+        private int home(long key) {
+            return (int) (MazeGeneratorA.mixSeed(key, 0) & mask);
+        }
+
+        private int find(long key) {
+            for (int i = home(key); ; i = (i + 1) & mask) {
+                if (tableSlot[i] < 0) return -1;
+                if (tableKeys[i] == key) return i;
+            }
+        }
+
+        private void insert(long key, int slot) {
+            int i = home(key);
+            while (tableSlot[i] >= 0) i = (i + 1) & mask;
+            tableKeys[i] = key;
+            tableSlot[i] = slot;
+        }
+
+        // linear probing delete: later entries of the same run are shifted back so no lookup stops early
+        private void remove(int i) {
+            tableSlot[i] = -1;
+            for (int j = (i + 1) & mask; tableSlot[j] >= 0; j = (j + 1) & mask) {
+                int h = home(tableKeys[j]);
+                if (((j - h) & mask) >= ((j - i) & mask)) {
+                    tableKeys[i] = tableKeys[j];
+                    tableSlot[i] = tableSlot[j];
+                    tableSlot[j] = -1;
+                    i = j;
+                }
+            }
+        }
+    }
+}
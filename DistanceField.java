@@ -0,0 +1,222 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Shortest path distances from one target cell (the player) to every cell in the maze.
+// all enemies chase the same target, so one reverse BFS per tick serves every enemy:
+// an enemy just steps to whichever open neighbour is closest to the target.
+// the arrays are kept between ticks and only reallocated when the maze grows.
+//
+// when only the target moves, the field is repaired instead of rebuilt (see moveTarget).
+// dist[] holds distances relative to a shared offset: real distance = dist[cell] + offset,
+// which lets every cell get "+k" in O(1) by bumping the offset.
+// run: java DistanceField check [mazes]  compares every repaired field with a rebuilt one, exits 1 on a mismatch
+class DistanceField {
+    static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private MazeView maze;
+    private int rows, cols;
+    private int[] dist = new int[0];
+    private int[] queue = new int[0];
+    private int offset;
+    private int target = -1;
+    private boolean stale = true;
+
+    // work done by the last update, in cells visited, handy for checking the repair stays local
+    private int lastUpdateCells;
+
+    // call after the walls change (expansion, new maze), the next update does a full rebuild
+    void invalidate() {
+        stale = true;
+    }
+
+    // brings the field up to date for a target at (tr, tc)
+    // full rebuild only if the maze changed, otherwise a local repair around the target's move
+    void update(MazeView maze, int tr, int tc) {
+        if (stale || maze != this.maze || maze.rows() != rows || maze.cols() != cols) {
+            rebuild(maze, tr, tc);
+        } else if (tr * cols + tc != target) {
+            moveTarget(tr, tc);
+        } else {
+            lastUpdateCells = 0;
+        }
+    }
+
+    // full BFS from (tr, tc) over the current maze
+    void rebuild(MazeView maze, int tr, int tc) {
+        this.maze = maze;
+        rows = maze.rows();
+        cols = maze.cols();
+        int cells = rows * cols;
+        if (dist.length < cells) {
+            dist = new int[cells];
+            queue = new int[cells];
+        }
+        Arrays.fill(dist, 0, cells, UNREACHABLE);
+        offset = 0;
+        stale = false;
+
+        int head = 0, tail = 0;
+        int start = tr * cols + tc;
+        target = start;
+        dist[start] = 0;
+        queue[tail++] = start;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            int r = cell / cols, c = cell % cols;
+            int d = dist[cell] + 1;
+
+            // up, down, left, right, same order the old per-enemy BFS used
+            if (r > 0 && !maze.hasBottomWall(r - 1, c) && dist[cell - cols] == UNREACHABLE) {
+                dist[cell - cols] = d;
+                queue[tail++] = cell - cols;
+            }
+            if (r < rows - 1 && !maze.hasBottomWall(r, c) && dist[cell + cols] == UNREACHABLE) {
+                dist[cell + cols] = d;
+                queue[tail++] = cell + cols;
+            }
+            if (c > 0 && !maze.hasRightWall(r, c - 1) && dist[cell - 1] == UNREACHABLE) {
+                dist[cell - 1] = d;
+                queue[tail++] = cell - 1;
+            }
+            if (c < cols - 1 && !maze.hasRightWall(r, c) && dist[cell + 1] == UNREACHABLE) {
+                dist[cell + 1] = d;
+                queue[tail++] = cell + 1;
+            }
+        }
+        lastUpdateCells = tail;
+    }
+
+    // repairs the field after the target moved from its old cell to (tr, tc), walls unchanged.
+    // if the old target was k steps from the new one, every distance is now at most old + k, so all
+    // cells get +k through the offset (O(1)). the only cells that are wrong after that are the ones
+    // that got closer, and each of them is reached from the new target through other cells that got
+    // closer, so a BFS from the new target that only follows decreases fixes all of them.
+    // cost = number of cells that got closer to the target, not the whole grid.
+    private void moveTarget(int tr, int tc) {
+        int start = tr * cols + tc;
+        int k = dist[start] == UNREACHABLE ? UNREACHABLE : dist[start] + offset;
+        if (k == UNREACHABLE || offset > (1 << 30) - k) {
+            // walked into a different region, or the offset is about to overflow
+            rebuild(maze, tr, tc);
+            return;
+        }
+        offset += k;
+        target = start;
+
+        int head = 0, tail = 0;
+        dist[start] = -offset;
+        queue[tail++] = start;
+
+        while (head < tail) {
+            int cell = queue[head++];
+            int r = cell / cols, c = cell % cols;
+            int d = dist[cell] + 1; // stored form, offset cancels out in the comparisons
+
+            if (r > 0 && !maze.hasBottomWall(r - 1, c) && dist[cell - cols] > d) {
+                dist[cell - cols] = d;
+                queue[tail++] = cell - cols;
+            }
+            if (r < rows - 1 && !maze.hasBottomWall(r, c) && dist[cell + cols] > d) {
+                dist[cell + cols] = d;
+                queue[tail++] = cell + cols;
+            }
+            if (c > 0 && !maze.hasRightWall(r, c - 1) && dist[cell - 1] > d) {
+                dist[cell - 1] = d;
+                queue[tail++] = cell - 1;
+            }
+            if (c < cols - 1 && !maze.hasRightWall(r, c) && dist[cell + 1] > d) {
+                dist[cell + 1] = d;
+                queue[tail++] = cell + 1;
+            }
+        }
+        lastUpdateCells = tail;
+    }
+
+    int lastUpdateCells() {
+        return lastUpdateCells;
+    }
+
+    int distance(int r, int c) {
+        int d = dist[r * cols + c];
+        return d == UNREACHABLE ? UNREACHABLE : d + offset;
+    }
+
+    // neighbour of (r, c) that is one step closer to the target, as a row-major cell index
+    // -1 when already on the target or the target can't be reached
+    int nextStep(int r, int c) {
+        int cell = r * cols + c;
+        int best = -1;
+        int bestDist = dist[cell];
+        if (cell == target || bestDist == UNREACHABLE) return -1;
+
+        if (r > 0 && !maze.hasBottomWall(r - 1, c) && dist[cell - cols] < bestDist) {
+            best = cell - cols;
+            bestDist = dist[best];
+        }
+        if (r < rows - 1 && !maze.hasBottomWall(r, c) && dist[cell + cols] < bestDist) {
+            best = cell + cols;
+            bestDist = dist[best];
+        }
+        if (c > 0 && !maze.hasRightWall(r, c - 1) && dist[cell - 1] < bestDist) {
+            best = cell - 1;
+            bestDist = dist[best];
+        }
+        if (c < cols - 1 && !maze.hasRightWall(r, c) && dist[cell + 1] < bestDist) {
+            best = cell + 1;
+        }
+        return best;
+    }
+
+    // random walks of the target over game mazes, and over mazes with walls closed at random so the target also
+    // walks into and out of pockets (where moveTarget gives up and rebuilds). after every move the repaired field
+    // must give the same distance and the same step for every cell as one rebuilt from scratch
+    public static void main(String[] args) {
+        if (args.length == 0 || !args[0].equals("check")) {
+            System.err.println("usage: java DistanceField check [mazes]");
+            return;
+        }
+        int mazes = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        SplittableRandom rnd = new SplittableRandom(1);
+        DistanceField repaired = new DistanceField(), rebuilt = new DistanceField();
+        long moves = 0, repairs = 0, wrong = 0;
+        long start = System.nanoTime();
+        for (int m = 0; m < mazes; m++) {
+            int rows = 2 + rnd.nextInt(60), cols = 2 + rnd.nextInt(60);
+            MazeGrid maze = MazeGenerator.generateMaze(rows, cols, m);
+            if (m % 2 == 1) MazeValidator.breakWalls(maze, rnd);
+            int tr = rnd.nextInt(rows), tc = rnd.nextInt(cols);
+            repaired.invalidate();
+            for (int walk = 0; walk < 100; walk++) {
+                if (rnd.nextInt(10) == 0) { // a jump, further than one step
+                    tr = rnd.nextInt(rows);
+                    tc = rnd.nextInt(cols);
+                } else {
+                    int dir = rnd.nextInt(4);
+                    int nr = tr + (dir == 0 ? -1 : dir == 1 ? 1 : 0), nc = tc + (dir == 2 ? -1 : dir == 3 ? 1 : 0);
+                    if (nr < 0 || nr >= rows || nc < 0 || nc >= cols || maze.isBlocked(tr, tc, nr, nc)) continue;
+                    tr = nr;
+                    tc = nc;
+                }
+                int offset = repaired.offset;
+                repaired.update(maze, tr, tc);
+                rebuilt.rebuild(maze, tr, tc);
+                moves++;
+                if (repaired.offset > offset) repairs++; // a rebuild starts the offset over at 0
+                for (int r = 0; r < rows; r++) {
+                    for (int c = 0; c < cols; c++) {
+                        if (repaired.distance(r, c) != rebuilt.distance(r, c)
+                                || repaired.nextStep(r, c) != rebuilt.nextStep(r, c)) wrong++;
+                    }
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d maze(s), %d target move(s), %d repaired locally, %d cell(s) different from a rebuild, %.2f s%n",
+                mazes, moves, repairs, wrong, seconds);
+        if (wrong != 0) {
+            System.out.println("FAILED: a repaired field must match a rebuilt one");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Eller's algorithm: builds a perfect maze one row at a time, keeping only the current row's sets in memory.
+// memory is O(cols) no matter how many rows are produced, so the height can be in the millions.
+public class EllerMazeGenerator {
+    private final int cols;
+    private final long rows;
+    private final SplittableRandom random;
+
+    private final UnionFind sets;   // sets of the row being built, indexed by column
+    private final int[] carry;      // set label handed down from the row above, -1 = no opening above
+    private final int[] firstInSet; // first column of this row holding a given carried label
+    private final int[] lastInSet;  // last column of this row belonging to a given root
+    private final boolean[] hasDown;
+
+    private long row = 0;
+
+    // the same seed and size always stream the exact same rows
+    public EllerMazeGenerator(long rows, int cols, long seed) {
+        this.rows = rows;
+        this.cols = cols;
+        this.random = new SplittableRandom(seed);
+        sets = new UnionFind(cols);
+        carry = new int[cols];
+        firstInSet = new int[cols];
+        lastInSet = new int[cols];
+        hasDown = new boolean[cols];
+        Arrays.fill(carry, -1);
+    }
+
+    public long rows() { return rows; }
+    public int cols() { return cols; }
+
+    public boolean hasNextRow() {
+        return row < rows;
+    }
+
+    // fills in the walls of the next row, true = wall standing
+    // the last row always gets a solid bottom, the exit is left to whoever prints it
+    public void nextRow(boolean[] rightWalls, boolean[] bottomWalls) {
+        boolean lastRow = row == rows - 1;
+        sets.reset();
+
+        // cells that were opened from above stay in the same set as each other
+        Arrays.fill(firstInSet, -1);
+        for (int c = 0; c < cols; c++) {
+            int label = carry[c];
+            if (label < 0) continue;
+            if (firstInSet[label] < 0) firstInSet[label] = c;
+            else sets.union(firstInSet[label], c);
+        }
+
+        // randomly join neighbours that aren't connected yet, the last row joins everything left over
+        for (int c = 0; c < cols - 1; c++) {
+            boolean join = !sets.connected(c, c + 1) && (lastRow || random.nextBoolean());
+            rightWalls[c] = !join;
+            if (join) sets.union(c, c + 1);
+        }
+        rightWalls[cols - 1] = true;
+
+        if (lastRow) {
+            Arrays.fill(bottomWalls, true);
+            row++;
+            return;
+        }
+
+        // every set needs at least one opening down, otherwise it gets cut off from the rest of the maze
+        for (int c = 0; c < cols; c++) {
+            int root = sets.find(c);
+            lastInSet[root] = c;
+            hasDown[root] = false;
+        }
+        for (int c = 0; c < cols; c++) {
+            int root = sets.find(c);
+            boolean down = random.nextBoolean() || (lastInSet[root] == c && !hasDown[root]);
+            bottomWalls[c] = !down;
+            if (down) hasDown[root] = true;
+            carry[c] = down ? root : -1;
+        }
+        row++;
+    }
+}
@@ -0,0 +1,128 @@
+import java.util.Arrays;
+
+// Every enemy of a game, stored as structure of arrays: enemy i stands on (row(i), col(i)), no object per enemy.
+// the cells with enemies on them are kept in an open addressing hash from cell to how many enemies stand there,
+// so "is there an enemy on this cell" is one lookup however big the crowd gets. keys are (row, col) pairs rather
+// than row * cols + col, so they stay the same when the maze grows sideways.
+final class EnemyCrowd {
+    private int[] rows = new int[4], cols = new int[4];
+    private int size = 0;
+
+    private long[] keys = new long[16];
+    private int[] counts = new int[16]; // enemies on the slot's cell, 0 = empty slot
+    private int cells = 0;              // slots in use, cells with at least one enemy
+
+    int size() { return size; }
+    int row(int i) { return rows[i]; }
+    int col(int i) { return cols[i]; }
+
+    void add(int r, int c) {
+        if (size == rows.length) {
+            rows = Arrays.copyOf(rows, size * 2);
+            cols = Arrays.copyOf(cols, size * 2);
+        }
+        rows[size] = r;
+        cols[size] = c;
+        size++;
+        enter(r, c);
+    }
+
+    void move(int i, int r, int c) {
+        if (rows[i] == r && cols[i] == c) return;
+        leave(rows[i], cols[i]);
+        rows[i] = r;
+        cols[i] = c;
+        enter(r, c);
+    }
+
+    void clear() {
+        size = 0;
+        Arrays.fill(counts, 0);
+        cells = 0;
+    }
+
+    boolean occupied(int r, int c) {
+        return counts[find(key(r, c))] > 0;
+    }
+
+    // manhattan distance from (r, c) to the closest enemy if that's at most radius, otherwise radius + 1.
+    // looks up the diamond of cells around (r, c) nearest first, so it stays cheap for a small radius whatever
+    // the size of the crowd
+    int nearest(int r, int c, int radius) {
+        for (int d = 0; d <= radius; d++) {
+            for (int dr = -d; dr <= d; dr++) {
+                int dc = d - Math.abs(dr);
+                if (occupied(r + dr, c + dc) || (dc != 0 && occupied(r + dr, c - dc))) return d;
+            }
+        }
+        return radius + 1;
+    }
+
+    // cells with at least one enemy, each once however many share it
+    int occupiedCells() { return cells; }
+
+    // copies the occupied cells out, rowsOut and colsOut need room for occupiedCells()
+    void copyOccupied(int[] rowsOut, int[] colsOut) {
+        int n = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (counts[i] == 0) continue;
+            rowsOut[n] = (int) (keys[i] >> 32);
+            colsOut[n] = (int) keys[i];
+            n++;
+        }
+    }
+
+    private static long key(int r, int c) {
+        return (long) r << 32 | (c & 0xFFFFFFFFL);
+    }
+
+    private int home(long key) {
+        return (int) MazeGeneratorA.mixSeed(key, 0) & (keys.length - 1);
+    }
+
+    // the key's slot, or the empty slot where it would go
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int i = home(key);
+        while (counts[i] > 0 && keys[i] != key) i = (i + 1) & mask;
+        return i;
+    }
+
+    private void enter(int r, int c) {
+        long key = key(r, c);
+        int i = find(key);
+        if (counts[i]++ > 0) return;
+        keys[i] = key;
+        if (++cells * 2 > keys.length) rehash(keys.length * 2); // at most half full keeps probe runs short
+    }
+
+    private void leave(int r, int c) {
+        int i = find(key(r, c));
+        if (--counts[i] > 0) return;
+        cells--;
+        // linear probing delete: later entries of the same run are shifted back so no lookup stops early
+        int mask = keys.length - 1;
+        for (int j = (i + 1) & mask; counts[j] > 0; j = (j + 1) & mask) {
+            int h = home(keys[j]);
+            if (((j - h) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                counts[i] = counts[j];
+                counts[j] = 0;
+                i = j;
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[capacity];
+        counts = new int[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCounts[i] == 0) continue;
+            int j = find(oldKeys[i]);
+            keys[j] = oldKeys[i];
+            counts[j] = oldCounts[i];
+        }
+    }
+}
@@ -0,0 +1,490 @@
+import java.util.SplittableRandom;
+
+// The game rules without a window: player moves, enemy chasing, collisions, expansion, victory and game over.
+// GamePanel drives one from its loop thread, GameSimulator plays thousands of them with scripted or AI input.
+// one engine is one game and isn't thread safe, separate games can run on separate threads.
+// expansion rules:
+// first 4 collisions -> horizontal expansions (add columns to right)
+// next 3 collisions  -> vertical expansions (add rows at bottom)
+// after 3 vertical expansions/ 7 total collisions -> Game Over
+class GameEngine {
+    // player directions, same order as the neighbours in PathFinder
+    static final int STAY = -1, UP = 0, DOWN = 1, LEFT = 2, RIGHT = 3;
+
+    static final int TICK_MILLIS = 25; // game time per tick
+    // grids with at least this many cells are played on a ChunkedMazeWorld, -Dmaze.chunkedCells to change
+    static final long CHUNKED_CELLS = Long.getLong("maze.chunkedCells", 1L << 22);
+
+    final GameState state = new GameState();
+
+    private final SplittableRandom rnd; // seeded per game, every maze and spawn comes from it
+    private final DistanceField distanceField = new DistanceField(); // reused every tick
+    private ChunkedMazeWorld.Window window; // chunked worlds only, the part of the world the field covers
+    private int[] spawnCells = new int[0]; // scratch for spawn, cells an enemy may start on
+    private final PathFinder pathFinder; // used when there's a single enemy
+    private final Tuning tuning;
+    private final MazePool pool; // every maze and expansion section, built ahead of time when the pool has depth
+
+    private final int maxHorizontal = 4; // max horiz and vert = 7 total
+    private final int maxVertical = 3;
+    private static final int HORIZONTAL_STEP = 4; // columns per horizontal expansion
+    private static final int VERTICAL_STEP = 3;   // rows per vertical expansion
+    private static final int WINDOW_CHUNKS = 16; // chunked worlds only, max field window side, see moveEnemiesInWindow
+    private static final int MIN_SEAM_LOOPS = 5;  // loops each expansion adds across its seam
+    private static final int MAX_SEAM_LOOPS = 9;
+
+    // search picked with -Dmaze.pathfinder=bfs|astar|bidi|corridor|table, difficulty with the -Dmaze.* properties of Tuning
+    // restart and expansion mazes are pre-generated in the background
+    GameEngine(int rows, int cols, long seed) {
+        this(rows, cols, seed, PathFinder.forName(System.getProperty("maze.pathfinder", "astar")), Tuning.fromProperties(),
+                MazePool.DEFAULT_DEPTH);
+    }
+
+    // no background generation, for batch runs that already keep every core busy
+    GameEngine(int rows, int cols, long seed, PathFinder pathFinder, Tuning tuning) {
+        this(rows, cols, seed, pathFinder, tuning, 0);
+    }
+
+    // same seed + size + tuning = same starting maze, enemy spawn and expansion sections, whatever the pool depth
+    GameEngine(int rows, int cols, long seed, PathFinder pathFinder, Tuning tuning, int poolDepth) {
+        this.rnd = new SplittableRandom(seed);
+        this.pathFinder = pathFinder;
+        this.tuning = tuning;
+        this.pool = new MazePool(rnd.nextLong(), tuning, poolDepth);
+        state.maze = newMaze(Math.max(4, rows), Math.max(4, cols));
+        state.rows = state.maze.rows(); // a chunked world rounds the size up to whole chunks
+        state.cols = state.maze.cols();
+        spawnEnemies();
+        prepareNextMazes();
+    }
+
+    // one fixed step of game time, enemies move every enemyStepTicks of them
+    // returns true if anything moved
+    boolean tick() {
+        if (state.isOver()) return false;
+        state.ticks++;
+        if (state.paused || ++state.enemyTicks < tuning.enemyStepTicks) return false;
+        state.enemyTicks = 0;
+        moveEnemiesBFS();
+        checkEnemyCollisions();
+        return true;
+    }
+
+    // returns true if the player moved, reaching the exit ends the game with a victory
+    boolean movePlayer(int dir) {
+        if (state.isOver() || dir == STAY) return false;
+
+        int nr = state.playerRow, nc = state.playerCol;
+        if (dir == UP) nr--;
+        if (dir == DOWN) nr++;
+        if (dir == LEFT) nc--;
+        if (dir == RIGHT) nc++;
+
+        if (nr < 0 || nr >= state.rows || nc < 0 || nc >= state.cols
+                || state.maze.isBlocked(state.playerRow, state.playerCol, nr, nc)) return false;
+        state.playerRow = nr;
+        state.playerCol = nc;
+
+        // victory check
+        if (state.playerRow == state.rows - 1 && state.playerCol == state.cols - 1) {
+            state.victoryMode = true;
+        }
+        return true;
+    }
+
+    // No enemy movement while paused, player can still move for demonstration purposes
+    void setPaused(boolean paused) {
+        if (state.paused && !paused) state.enemyTicks = 0; // a full enemy interval after resuming
+        state.paused = paused;
+    }
+
+    // new maze of the current size, player back at the start, time back to zero
+    void restart() {
+        state.victoryMode = false;
+        state.gameOver = false;
+        state.horizontalExpansions = 0;
+        state.verticalExpansions = 0;
+        state.ticks = 0;
+        state.enemyTicks = 0;
+
+        // reset maze & player
+        state.maze = newMaze(state.rows, state.cols); // keep the current rows/cols size
+        state.mazeVersion++;
+        distanceField.invalidate();
+        state.playerRow = 0;
+        state.playerCol = 0;
+
+        // reset enemies
+        state.enemies.clear();
+        spawnEnemies();
+        prepareNextMazes();
+    }
+
+    private MazeGrid generateMaze(int rows, int cols) {
+        return pool.take(rows, cols);
+    }
+
+    // the mazes the next restart or expansion will ask for, so they're ready by then
+    private void prepareNextMazes() {
+        if (state.maze instanceof ChunkedMazeWorld) return; // worlds are built lazily anyway
+        pool.prepare(state.rows, state.cols);
+        if (state.horizontalExpansions < maxHorizontal) {
+            pool.prepare(state.rows, HORIZONTAL_STEP);
+        } else if (state.verticalExpansions < maxVertical) {
+            pool.prepare(VERTICAL_STEP, state.cols);
+        }
+    }
+
+    // whole level: one generated maze, or a chunked world for big grids, which only builds the chunks in use
+    private MazeView newMaze(int rows, int cols) {
+        if ((long) rows * cols >= CHUNKED_CELLS) {
+            return new ChunkedMazeWorld(rows, cols, rnd.nextLong(), tuning, ChunkedMazeWorld.DEFAULT_MAX_CHUNKS);
+        }
+        return generateMaze(rows, cols);
+    }
+
+    // enemy spawning: uniformly among the cells whose real path distance from the player is at least minDist,
+    // read off the distance field (one BFS, and the chase reuses it), so an enemy never starts in a pocket the
+    // player can't reach or right next to the player behind a wall. if no cell is that far, the farthest cells
+    // there are. costs one pass over the region whatever happens, never a retry loop.
+    // on a chunked world the field is the chase's window (see moveEnemiesInWindow), and only the part of the
+    // region inside it is read. cells of the region outside the window come next after the far enough ones:
+    // the world is connected, and any path to them leaves the window first
+    private void spawnEnemies() {
+        int minDist = Math.max(3, Math.max(state.rows, state.cols) / 2);
+        spawn(tuning.enemies, 0, 0, state.rows, state.cols, minDist);
+    }
+
+    // one enemy somewhere in the section an expansion just added
+    private void spawnEnemyInNewSection(int r0, int c0, int sectionRows, int sectionCols) {
+        int minDist = Math.max(3, Math.max(state.rows, state.cols) / 4);
+        spawn(1, r0, c0, sectionRows, sectionCols, minDist);
+    }
+
+    // count enemies in the region of sectionRows x sectionCols cells from (r0, c0)
+    private void spawn(int count, int r0, int c0, int sectionRows, int sectionCols, int minDist) {
+        // the maze the field covers, and where its top-left cell is in the whole maze
+        MazeView fieldMaze = state.maze;
+        int fr0 = 0, fc0 = 0;
+        if (state.maze instanceof ChunkedMazeWorld) {
+            window = fieldWindow((ChunkedMazeWorld) state.maze);
+            fieldMaze = window;
+            fr0 = window.r0;
+            fc0 = window.c0;
+        }
+        distanceField.update(fieldMaze, state.playerRow - fr0, state.playerCol - fc0);
+
+        // the region clipped to the field, cells stored by their index in the field
+        int rFrom = Math.max(r0, fr0), rTo = Math.min(r0 + sectionRows, fr0 + fieldMaze.rows());
+        int cFrom = Math.max(c0, fc0), cTo = Math.min(c0 + sectionCols, fc0 + fieldMaze.cols());
+        int inside = Math.max(0, rTo - rFrom) * Math.max(0, cTo - cFrom);
+        long outside = (long) sectionRows * sectionCols - inside;
+        if (spawnCells.length < inside) spawnCells = new int[inside];
+
+        int candidates = 0, farthest = -1;
+        for (int r = rFrom; r < rTo; r++) {
+            for (int c = cFrom; c < cTo; c++) {
+                int d = distanceField.distance(r - fr0, c - fc0);
+                if (d == DistanceField.UNREACHABLE) continue;
+                if (d >= minDist) spawnCells[candidates++] = (r - fr0) * fieldMaze.cols() + (c - fc0);
+                farthest = Math.max(farthest, d);
+            }
+        }
+        if (candidates == 0 && outside == 0 && farthest >= 0) { // nothing far enough, settle for the farthest cells
+            for (int r = rFrom; r < rTo; r++) {
+                for (int c = cFrom; c < cTo; c++) {
+                    if (distanceField.distance(r - fr0, c - fc0) == farthest) {
+                        spawnCells[candidates++] = (r - fr0) * fieldMaze.cols() + (c - fc0);
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (candidates > 0) {
+                int cell = spawnCells[rnd.nextInt(candidates)];
+                state.enemies.add(fr0 + cell / fieldMaze.cols(), fc0 + cell % fieldMaze.cols());
+            } else if (outside > 0) {
+                spawnOutside(r0, c0, sectionRows, sectionCols, rFrom, rTo, cFrom, cTo, rnd.nextLong(outside));
+            } else { // the player can't reach the region at all, installed mazes never do that
+                state.enemies.add(r0 + rnd.nextInt(sectionRows), c0 + rnd.nextInt(sectionCols));
+            }
+        }
+    }
+
+    // the k-th cell (row by row) of the region of sectionRows x sectionCols cells from (r0, c0) that isn't in
+    // rows rFrom..rTo x cols cFrom..cTo (exclusive ends, the part of the region inside the field's window)
+    private void spawnOutside(int r0, int c0, int sectionRows, int sectionCols,
+                              int rFrom, int rTo, int cFrom, int cTo, long k) {
+        int hole = Math.max(0, cTo - cFrom);
+        for (int r = r0; ; r++) {
+            boolean clipped = r >= rFrom && r < rTo;
+            int free = clipped ? sectionCols - hole : sectionCols;
+            if (k >= free) {
+                k -= free;
+                continue;
+            }
+            int c = c0 + (int) k;
+            if (clipped && c >= cFrom) c += hole;
+            state.enemies.add(r, c);
+            return;
+        }
+    }
+
+    // enemy movement
+    // one distance field from the player, shared by every enemy, instead of a separate search per enemy
+    // the field is only rebuilt after the maze changes, player moves are repaired locally
+    // a RoutingTable answers every enemy with a lookup, so with one the field is only needed for a maze the table
+    // can't cover. it moves the enemies exactly as the field would
+    private void moveEnemiesBFS() {
+        if (state.maze instanceof ChunkedMazeWorld) {
+            moveEnemiesInWindow((ChunkedMazeWorld) state.maze);
+            return;
+        }
+        EnemyCrowd enemies = state.enemies;
+        boolean table = pathFinder instanceof RoutingTable;
+        // a single enemy only needs one path, a targeted search finds it without touching the whole grid
+        if (table ? ((RoutingTable) pathFinder).ready(state.maze) : enemies.size() == 1) {
+            for (int i = 0; i < enemies.size(); i++) {
+                moveEnemy(i, pathFinder.nextStep(state.maze, enemies.row(i), enemies.col(i), state.playerRow, state.playerCol));
+            }
+            return;
+        }
+
+        distanceField.update(state.maze, state.playerRow, state.playerCol);
+        for (int i = 0; i < enemies.size(); i++) {
+            moveEnemy(i, distanceField.nextStep(enemies.row(i), enemies.col(i)));
+        }
+    }
+
+    // a chunked world is far too big for a field over every cell (it would build every chunk, and regenerate
+    // them all each tick once the world outgrows the chunk cache), and a targeted search per enemy can cover
+    // most of it too when the enemy is far away. so the field covers a window of whole chunks: the ones around
+    // the player and the enemies plus a chunk of margin, at most WINDOW_CHUNKS a side (1024 x 1024 cells). any
+    // rectangle of whole chunks is connected, so everyone inside it has a way to the player within it, not
+    // always the world's shortest. the window is kept, with the field repaired as the player moves, until the
+    // maze changes or the player walks out of it. enemies outside a window that had to be cut down to size, more than
+    // several hundred cells from the player, wait there until a window reaches them
+    private void moveEnemiesInWindow(ChunkedMazeWorld world) {
+        EnemyCrowd enemies = state.enemies;
+        window = fieldWindow(world);
+        distanceField.update(window, state.playerRow - window.r0, state.playerCol - window.c0);
+        for (int i = 0; i < enemies.size(); i++) {
+            int r = enemies.row(i), c = enemies.col(i);
+            if (!window.contains(r, c)) continue;
+            int step = distanceField.nextStep(r - window.r0, c - window.c0);
+            if (step >= 0) enemies.move(i, window.r0 + step / window.cols(), window.c0 + step % window.cols());
+        }
+    }
+
+    // the window kept from before, unless the maze changed or the player walked out of it
+    private ChunkedMazeWorld.Window fieldWindow(ChunkedMazeWorld world) {
+        if (window != null && window.world == world && window.contains(state.playerRow, state.playerCol)) return window;
+        return fitWindow(world);
+    }
+
+    // the chunks holding the player and every enemy, one more all around, or WINDOW_CHUNKS a side around the
+    // player if that's more
+    private ChunkedMazeWorld.Window fitWindow(ChunkedMazeWorld world) {
+        int shift = ChunkedMazeWorld.CHUNK_SHIFT;
+        int minR = state.playerRow, maxR = minR, minC = state.playerCol, maxC = minC;
+        EnemyCrowd enemies = state.enemies;
+        for (int i = 0; i < enemies.size(); i++) {
+            minR = Math.min(minR, enemies.row(i));
+            maxR = Math.max(maxR, enemies.row(i));
+            minC = Math.min(minC, enemies.col(i));
+            maxC = Math.max(maxC, enemies.col(i));
+        }
+        int[] rows = windowSpan(minR >> shift, maxR >> shift, state.playerRow >> shift, world.rows() >> shift);
+        int[] cols = windowSpan(minC >> shift, maxC >> shift, state.playerCol >> shift, world.cols() >> shift);
+        return world.window(rows[0], cols[0], rows[1], cols[1]);
+    }
+
+    // first and last chunk of the window along one axis, from the chunks that need covering and the player's
+    private static int[] windowSpan(int from, int to, int player, int chunks) {
+        from = Math.max(0, from - 1);
+        to = Math.min(chunks - 1, to + 1);
+        if (to - from + 1 > WINDOW_CHUNKS) {
+            from = Math.max(0, Math.min(chunks - WINDOW_CHUNKS, player - WINDOW_CHUNKS / 2));
+            to = from + WINDOW_CHUNKS - 1;
+        }
+        return new int[]{from, to};
+    }
+
+    private void moveEnemy(int i, int step) {
+        if (step < 0) return;
+        state.enemies.move(i, step / state.cols, step % state.cols);
+    }
+
+    // collision, a single lookup in the crowd's cell index
+    private void checkEnemyCollisions() {
+        if (state.enemies.occupied(state.playerRow, state.playerCol)) {
+            // expand according to current phase
+            expandMazeWithRules();
+        }
+    }
+
+    // expansion with rules (horizontal then vertical then lose)
+    private void expandMazeWithRules() {
+        if (state.isOver()) return;
+
+        // Horizontal phase
+        if (state.horizontalExpansions < maxHorizontal) {
+            state.horizontalExpansions++;
+            int added = expandHorizontally(HORIZONTAL_STEP); // add 4 columns at a time
+            spawnEnemyInNewSection(0, state.cols - added, state.rows, added);
+            return;
+        }
+
+        // Vertical phase
+        if (state.verticalExpansions < maxVertical) {
+            state.verticalExpansions++;
+            int added = expandVertically(VERTICAL_STEP); // add 3 rows at bottom each time
+            spawnEnemyInNewSection(state.rows - added, 0, added, state.cols);
+            return;
+        }
+
+        // If we reach here, 7 expansions, game over
+        state.gameOver = true;
+    }
+
+    // horizontal expansion, returns the number of columns actually added
+    private int expandHorizontally(int extraCols) {
+        int rows = state.rows, cols = state.cols;
+        if (state.maze instanceof ChunkedMazeWorld) {
+            // nothing to copy: a bigger world over the same chunks, the new ones get built as they're looked at
+            installMaze(((ChunkedMazeWorld) state.maze).grow(0, extraCols));
+            return state.cols - cols;
+        }
+
+        // the new columns go straight into the grown grid, the old cells aren't copied
+        MazeGrid newSection = generateMaze(rows, extraCols);
+        MazeGrid newMaze = grownMaze(0, extraCols);
+        for (int r = 0; r < rows; r++)
+            for (int c = 0; c < extraCols; c++)
+                copyCell(newSection, r, c, newMaze, r, cols + c);
+
+        joinSection(newMaze, 0, cols, rows, extraCols, true, seamLoops());
+        installMaze(newMaze);
+        return extraCols;
+    }
+
+
+    // vertical expansion: add new rows at bottom, returns the number of rows actually added
+    private int expandVertically(int extraRows) {
+        int rows = state.rows, cols = state.cols;
+        if (state.maze instanceof ChunkedMazeWorld) {
+            installMaze(((ChunkedMazeWorld) state.maze).grow(extraRows, 0));
+            return state.rows - rows;
+        }
+
+        // Generate the new vertical chunk, straight into the grown grid below the old rows
+        MazeGrid newSection = generateMaze(extraRows, cols);
+        MazeGrid newMaze = grownMaze(extraRows, 0);
+        for (int r = 0; r < extraRows; r++)
+            for (int c = 0; c < cols; c++)
+                copyCell(newSection, r, c, newMaze, rows + r, c);
+
+        // connect old bottom to new top
+        joinSection(newMaze, rows, 0, extraRows, cols, false, seamLoops());
+        installMaze(newMaze);
+        return extraRows;
+    }
+
+    // the maze with room for a new section: a PackedMazeGrid grows with a copy of its words, not cell by cell.
+    // either way the new grid is private to the loop thread until installMaze, and the old one is never written
+    // again, so a snapshot still drawing it keeps reading exactly the walls it was built with
+    private MazeGrid grownMaze(int extraRows, int extraCols) {
+        if (state.maze instanceof PackedMazeGrid) return ((PackedMazeGrid) state.maze).grow(extraRows, extraCols);
+        MazeGrid grown = new PackedMazeGrid(state.rows + extraRows, state.cols + extraCols);
+        for (int r = 0; r < state.rows; r++)
+            for (int c = 0; c < state.cols; c++)
+                copyCell(state.maze, r, c, grown, r, c);
+        return grown;
+    }
+
+    private int seamLoops() {
+        return MIN_SEAM_LOOPS + rnd.nextInt(MAX_SEAM_LOOPS - MIN_SEAM_LOOPS + 1);
+    }
+
+    // opens walls between the maze and the section just appended at (r0, c0), beside it (to the right) or below it.
+    // every maze the engine installs is one connected component, so the old part of the maze is a single node and
+    // a union-find over the section's own cells holds all the connectivity there is, built in time proportional to
+    // the section. an opening either joins a section component to the rest (a generated section is connected, so
+    // normally exactly one of those) or, with both sides already joined, adds one loop.
+    // afterwards the maze is one connected component again, with exactly `loops` more independent loops than the
+    // old maze and the section had between them (fewer only if the seam runs out of walls)
+    private void joinSection(MazeGrid maze, int r0, int c0, int sectionRows, int sectionCols, boolean beside, int loops) {
+        UnionFind uf = new UnionFind(1 + sectionRows * sectionCols); // node 0 = the old maze
+        int components = uf.size();
+        for (int r = 0; r < sectionRows; r++) {
+            for (int c = 0; c < sectionCols; c++) {
+                int node = 1 + r * sectionCols + c;
+                if (c + 1 < sectionCols && !maze.hasRightWall(r0 + r, c0 + c) && uf.union(node, node + 1)) components--;
+                if (r + 1 < sectionRows && !maze.hasBottomWall(r0 + r, c0 + c) && uf.union(node, node + sectionCols)) components--;
+            }
+        }
+
+        // evenly spaced along the seam, like the openings always were: the first one joins, the rest add loops
+        int length = beside ? sectionRows : sectionCols;
+        int openings = Math.min(length, loops + 1);
+        int added = 0;
+        for (int k = 0; k < openings; k++) {
+            int i = openings == 1 ? length / 2 : k * (length - 1) / (openings - 1);
+            int result = openSeam(maze, uf, r0, c0, sectionCols, beside, i, added < loops);
+            if (result < 0) components--;
+            else added += result;
+        }
+        // a section in several pieces: join every piece that touches the seam, then the ones that don't from inside
+        for (int i = 0; i < length && components > 1; i++) {
+            if (openSeam(maze, uf, r0, c0, sectionCols, beside, i, false) < 0) components--;
+        }
+        for (int r = 0; r < sectionRows && components > 1; r++) {
+            for (int c = 0; c < sectionCols; c++) {
+                int node = 1 + r * sectionCols + c;
+                if (c + 1 < sectionCols && uf.union(node, node + 1)) {
+                    maze.setRightWall(r0 + r, c0 + c, false);
+                    components--;
+                }
+                if (r + 1 < sectionRows && uf.union(node, node + sectionCols)) {
+                    maze.setBottomWall(r0 + r, c0 + c, false);
+                    components--;
+                }
+            }
+        }
+        // loops the evenly spaced openings couldn't make (some of them went to joining pieces instead)
+        for (int i = 0; i < length && added < loops; i++) {
+            if (openSeam(maze, uf, r0, c0, sectionCols, beside, i, true) > 0) added++;
+        }
+    }
+
+    // opens seam wall i if it joins the section cell behind it to the old maze (returns -1), or if loops are
+    // still wanted and it adds one (returns 1), otherwise leaves it (returns 0)
+    private static int openSeam(MazeGrid maze, UnionFind uf, int r0, int c0, int sectionCols, boolean beside, int i,
+                                boolean loop) {
+        int r = beside ? r0 + i : r0 - 1; // the old maze's cell on the seam
+        int c = beside ? c0 - 1 : c0 + i;
+        if (beside ? !maze.hasRightWall(r, c) : !maze.hasBottomWall(r, c)) return 0; // already open
+        int node = 1 + (beside ? i * sectionCols : i);
+        int result;
+        if (uf.union(0, node)) result = -1;
+        else if (loop) result = 1;
+        else return 0;
+        if (beside) maze.setRightWall(r, c, false);
+        else maze.setBottomWall(r, c, false);
+        return result;
+    }
+
+    private void installMaze(MazeView maze) {
+        state.maze = maze;
+        state.rows = maze.rows();
+        state.cols = maze.cols();
+        state.mazeVersion++;
+        distanceField.invalidate();
+        prepareNextMazes();
+    }
+
+    private static void copyCell(MazeView from, int fr, int fc, MazeGrid to, int tr, int tc) {
+        to.setRightWall(tr, tc, from.hasRightWall(fr, fc));
+        to.setBottomWall(tr, tc, from.hasBottomWall(fr, fc));
+    }
+}
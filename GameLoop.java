@@ -0,0 +1,88 @@
+import java.util.concurrent.locks.LockSupport;
+
+// Fixed-timestep loop on its own thread: calls tick every tickNanos, then publish once per wake-up.
+// the game logic (enemy searches on big mazes included) runs here, never on the Swing event thread,
+// so a slow tick only delays the simulation, not input or painting.
+// a late wake-up runs the missed ticks back to back (catch-up), at most MAX_CATCH_UP of them; anything
+// beyond that is dropped so a long stall (GC, debugger, sleeping laptop) doesn't end in a burst of moves.
+class GameLoop implements Runnable {
+    static final int MAX_CATCH_UP = 5;
+
+    private final long tickNanos;
+    private final Runnable tick;
+    private final Runnable publish;
+    private volatile boolean running;
+    private Thread thread;
+
+    // timing stats, written by the loop thread only, read from anywhere
+    private volatile long ticks;
+    private volatile long catchUpTicks;  // ticks that ran late, straight after another one
+    private volatile long droppedTicks;  // ticks skipped because the loop fell too far behind
+    private volatile long avgTickNanos;  // moving average of the time spent inside tick
+    private volatile long maxTickNanos;
+    private volatile long lagNanos;      // how late the last tick started compared to its slot
+
+    GameLoop(long tickMillis, Runnable tick, Runnable publish) {
+        this.tickNanos = tickMillis * 1_000_000L;
+        this.tick = tick;
+        this.publish = publish;
+    }
+
+    void start() {
+        if (thread != null) return;
+        running = true;
+        thread = new Thread(this, "game-loop");
+        thread.setDaemon(true); // never keeps the JVM alive after the window closes
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+        if (thread != null) LockSupport.unpark(thread);
+        thread = null;
+    }
+
+    @Override
+    public void run() {
+        long next = System.nanoTime() + tickNanos;
+        while (running) {
+            long now = System.nanoTime();
+            if (now < next) {
+                LockSupport.parkNanos(next - now);
+                continue;
+            }
+
+            long behind = (now - next) / tickNanos; // whole ticks missed on top of this one
+            if (behind >= MAX_CATCH_UP) {
+                droppedTicks += behind - MAX_CATCH_UP + 1;
+                next += (behind - MAX_CATCH_UP + 1) * tickNanos;
+            }
+            boolean first = true;
+            while (next <= now && running) {
+                lagNanos = now - next;
+                long start = System.nanoTime();
+                try {
+                    tick.run();
+                } catch (RuntimeException e) {
+                    e.printStackTrace(); // one broken tick must not kill the game
+                }
+                long cost = System.nanoTime() - start;
+                avgTickNanos = avgTickNanos == 0 ? cost : avgTickNanos + (cost - avgTickNanos) / 16;
+                if (cost > maxTickNanos) maxTickNanos = cost;
+                ticks++;
+                if (!first) catchUpTicks++;
+                first = false;
+                next += tickNanos;
+            }
+            publish.run();
+        }
+    }
+
+    long tickNanos() { return tickNanos; }
+    long ticks() { return ticks; }
+    long catchUpTicks() { return catchUpTicks; }
+    long droppedTicks() { return droppedTicks; }
+    long avgTickNanos() { return avgTickNanos; }
+    long maxTickNanos() { return maxTickNanos; }
+    long lagNanos() { return lagNanos; }
+}
@@ -0,0 +1,65 @@
+import java.util.stream.IntStream;
+
+// Plays whole games without a window, spread over every core, for difficulty tuning and regression checks.
+// run: java GameSimulator [games] [rows] [cols] [seed] [player] [player move ticks]
+//   player = seek | cautious | a w/a/s/d key script (see PlayerInput), default seek
+//   player move ticks = ticks between player moves, default 6 (150ms at the game's 25ms tick)
+// maze and enemy difficulty come from the -Dmaze.* properties, see Tuning, the enemy search from
+// -Dmaze.pathfinder (see PathFinder.forName, default astar).
+// game i is seeded with mixSeed(seed, i), so the same arguments always play exactly the same games,
+// no matter how many threads end up running them.
+public class GameSimulator {
+    static final int WIN = 0, LOSS = 1, TIMEOUT = 2;
+    static final int DEFAULT_MOVE_TICKS = 6;
+    static final long MAX_TICKS = 100_000; // about 40 minutes of game time, a player that never gets anywhere
+
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 15;
+        int cols = args.length > 2 ? Integer.parseInt(args[2]) : 15;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1L;
+        String player = args.length > 4 ? args[4] : "seek";
+        int moveTicks = args.length > 5 ? Integer.parseInt(args[5]) : DEFAULT_MOVE_TICKS;
+        Tuning tuning = Tuning.fromProperties();
+        String pathFinder = System.getProperty("maze.pathfinder", "astar");
+
+        int[] outcome = new int[games];
+        long[] ticks = new long[games];
+        int[] expansions = new int[games];
+
+        long start = System.nanoTime();
+        IntStream.range(0, games).parallel().forEach(i -> {
+            GameEngine engine = new GameEngine(rows, cols, MazeGeneratorA.mixSeed(seed, i),
+                    PathFinder.forName(pathFinder), tuning);
+            outcome[i] = play(engine, PlayerInput.forName(player), moveTicks, MAX_TICKS);
+            ticks[i] = engine.state.ticks;
+            expansions[i] = engine.state.expansions();
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int[] count = new int[3];
+        long winTicks = 0, totalExpansions = 0;
+        for (int i = 0; i < games; i++) {
+            count[outcome[i]]++;
+            if (outcome[i] == WIN) winTicks += ticks[i];
+            totalExpansions += expansions[i];
+        }
+        System.out.printf("%d games of %dx%d, player %s every %d ticks, %s, %.2f s (%.0f games/s)%n",
+                games, rows, cols, player, moveTicks, tuning, seconds, games / seconds);
+        System.out.printf("wins %d (%.1f%%)  losses %d (%.1f%%)  timeouts %d%n",
+                count[WIN], 100.0 * count[WIN] / games, count[LOSS], 100.0 * count[LOSS] / games, count[TIMEOUT]);
+        System.out.printf("average win time %.2f s  average expansions %.2f%n",
+                count[WIN] == 0 ? 0 : winTicks * GameEngine.TICK_MILLIS / 1000.0 / count[WIN],
+                (double) totalExpansions / games);
+    }
+
+    // runs one game to the end: the player moves every moveTicks ticks, the engine ticks in between
+    static int play(GameEngine engine, PlayerInput input, int moveTicks, long maxTicks) {
+        GameState state = engine.state;
+        while (!state.isOver() && state.ticks < maxTicks) {
+            if (state.ticks % moveTicks == 0) engine.movePlayer(input.nextMove(state));
+            engine.tick();
+        }
+        return state.victoryMode ? WIN : state.gameOver ? LOSS : TIMEOUT;
+    }
+}
@@ -0,0 +1,44 @@
+// Everything the panel needs to draw one frame, copied out of the simulation at the end of a tick.
+// never changed after it's built, so the event thread can paint from it while the loop thread moves on.
+// the maze itself isn't copied: restart and expansion always install a new grid object and bump mazeVersion,
+// and a grid that has been installed is never written again.
+final class GameSnapshot {
+    final MazeView maze;
+    final int mazeVersion;
+    final int rows, cols;
+    final int playerRow, playerCol;
+    final int[] enemyRows, enemyCols; // cells with enemies on them, each once however many enemies share it
+    final boolean paused, victoryMode, gameOver, newRecord;
+    final float victoryScale;
+    final double lastTimeTaken, bestTime;
+
+    // loop timing at the time of the snapshot, for the stats overlay
+    final long ticks, catchUpTicks, droppedTicks;
+    final long avgTickNanos, maxTickNanos, lagNanos;
+
+    GameSnapshot(MazeView maze, int mazeVersion, int playerRow, int playerCol, int[] enemyRows, int[] enemyCols,
+                 boolean paused, boolean victoryMode, boolean gameOver, boolean newRecord, float victoryScale,
+                 double lastTimeTaken, double bestTime, GameLoop loop) {
+        this.maze = maze;
+        this.mazeVersion = mazeVersion;
+        this.rows = maze.rows();
+        this.cols = maze.cols();
+        this.playerRow = playerRow;
+        this.playerCol = playerCol;
+        this.enemyRows = enemyRows;
+        this.enemyCols = enemyCols;
+        this.paused = paused;
+        this.victoryMode = victoryMode;
+        this.gameOver = gameOver;
+        this.newRecord = newRecord;
+        this.victoryScale = victoryScale;
+        this.lastTimeTaken = lastTimeTaken;
+        this.bestTime = bestTime;
+        this.ticks = loop.ticks();
+        this.catchUpTicks = loop.catchUpTicks();
+        this.droppedTicks = loop.droppedTicks();
+        this.avgTickNanos = loop.avgTickNanos();
+        this.maxTickNanos = loop.maxTickNanos();
+        this.lagNanos = loop.lagNanos();
+    }
+}
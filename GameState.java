@@ -0,0 +1,29 @@
+// Everything about one game in progress, no Swing and no timing: GameEngine changes it, the panel and
+// the batch simulator read it. time is counted in engine ticks so a game plays out the same with or without a clock.
+class GameState {
+    MazeView maze;
+    int mazeVersion = 0; // bumped whenever maze is replaced (restart, expansion)
+    int rows, cols;
+
+    int playerRow = 0, playerCol = 0;
+    final EnemyCrowd enemies = new EnemyCrowd();
+
+    boolean victoryMode = false;
+    boolean gameOver = false;
+    boolean paused = false;
+
+    // expansion counters, first horizontal then vertical, see GameEngine.expandMazeWithRules
+    int horizontalExpansions = 0;
+    int verticalExpansions = 0;
+
+    long ticks = 0;     // ticks played in this game, paused ones included, frozen once the game is over
+    int enemyTicks = 0; // ticks since the enemies last moved
+
+    boolean isOver() {
+        return victoryMode || gameOver;
+    }
+
+    int expansions() {
+        return horizontalExpansions + verticalExpansions;
+    }
+}
@@ -0,0 +1,325 @@
+import java.io.FileNotFoundException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Measures how hard generated mazes are, over many seeds at once, to tune the numbers in Tuning.
+// run: java [-Dmaze.*=...] MazeAnalyzer [mazes] [rows] [cols] [seed] [csv file]
+// maze i comes from MazeGenerator.generateMaze with seed mixSeed(seed, i), mazes are measured in parallel
+// on the common fork-join pool. prints a summary with histograms, and one CSV line per maze if a file is given.
+//
+// per maze:
+//   path       shortest path length from the start (0, 0) to the exit
+//   deadEnds   cells with a single opening
+//   loops      independent cycles, open walls - cells + connected parts
+//   branching  average children per inner node of the BFS tree from the start
+//   intercept  share of the cells an enemy can spawn on (same rule as the game) from which it can get onto
+//              the player's route before the player does, with the player walking the shortest path every
+//              -Dmaze.playerTicks ticks (default 6) and the enemy stepping every enemyTicks ticks
+public class MazeAnalyzer {
+    private static final int MAZES_PER_TASK = 4;
+
+    public static void main(String[] args) throws FileNotFoundException {
+        int mazes = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int cols = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1L;
+        String csv = args.length > 4 ? args[4] : null;
+        Tuning tuning = Tuning.fromProperties();
+        int playerTicks = Integer.getInteger("maze.playerTicks", GameSimulator.DEFAULT_MOVE_TICKS);
+
+        Results results = new Results(mazes);
+        long start = System.nanoTime();
+        ForkJoinPool.commonPool().invoke(new AnalyzeRange(results, 0, mazes, rows, cols, seed, tuning, playerTicks));
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d mazes of %dx%d, %s, playerTicks=%d, %.2f s (%.0f mazes/s)%n",
+                mazes, rows, cols, tuning, playerTicks, seconds, mazes / seconds);
+        summary("path", toDouble(results.path));
+        summary("deadEnds", toDouble(results.deadEnds));
+        summary("loops", toDouble(results.loops));
+        summary("branching", results.branching);
+        summary("intercept", results.intercept);
+        histogram("path", toDouble(results.path));
+        histogram("intercept", results.intercept);
+
+        if (csv != null) {
+            try (PrintStream out = new PrintStream(csv)) {
+                out.println("maze,seed,path,deadEnds,loops,branching,intercept");
+                for (int i = 0; i < mazes; i++) {
+                    out.printf("%d,%d,%d,%d,%d,%.4f,%.4f%n", i, MazeGeneratorA.mixSeed(seed, i),
+                            results.path[i], results.deadEnds[i], results.loops[i], results.branching[i], results.intercept[i]);
+                }
+            }
+            System.out.println("wrote " + csv);
+        }
+    }
+
+    // one slot per maze, filled in by whichever worker measured it
+    static final class Results {
+        final int[] path, deadEnds, loops;
+        final double[] branching, intercept;
+
+        Results(int mazes) {
+            path = new int[mazes];
+            deadEnds = new int[mazes];
+            loops = new int[mazes];
+            branching = new double[mazes];
+            intercept = new double[mazes];
+        }
+    }
+
+    // splits the maze range in halves until it's small, then measures each maze with one set of scratch arrays
+    private static final class AnalyzeRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Results results;
+        private final int from, to, rows, cols, playerTicks;
+        private final long seed;
+        private final Tuning tuning;
+
+        AnalyzeRange(Results results, int from, int to, int rows, int cols, long seed, Tuning tuning, int playerTicks) {
+            this.results = results;
+            this.from = from;
+            this.to = to;
+            this.rows = rows;
+            this.cols = cols;
+            this.seed = seed;
+            this.tuning = tuning;
+            this.playerTicks = playerTicks;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > MAZES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new AnalyzeRange(results, from, mid, rows, cols, seed, tuning, playerTicks),
+                          new AnalyzeRange(results, mid, to, rows, cols, seed, tuning, playerTicks));
+                return;
+            }
+            Metrics metrics = new Metrics(rows * cols);
+            for (int i = from; i < to; i++) {
+                MazeGrid maze = MazeGenerator.generateMaze(rows, cols, MazeGeneratorA.mixSeed(seed, i), false, tuning);
+                metrics.measure(maze, tuning.enemyStepTicks, playerTicks);
+                results.path[i] = metrics.path;
+                results.deadEnds[i] = metrics.deadEnds;
+                results.loops[i] = metrics.loops;
+                results.branching[i] = metrics.branching;
+                results.intercept[i] = metrics.intercept;
+            }
+        }
+    }
+
+    // the measurements for one maze, all from a few linear passes over reused arrays.
+    // the walls are read through MazeView once, into a byte of open directions per cell (bit dir = open towards
+    // PathFinder's direction dir), every pass after that only looks at those bytes
+    static final class Metrics {
+        int path, deadEnds, loops;
+        double branching, intercept;
+
+        private byte[] open;
+        private int[] dist, parent, children, cost, queue, queueCost;
+        private int[] part; // connected part of each cell, 0 = the start's, only those have a distance from it
+        private final int[] offset = new int[4]; // cell index change for each direction
+        private int rows, cols;
+
+        Metrics(int cells) {
+            open = new byte[cells];
+            dist = new int[cells];
+            part = new int[cells];
+            parent = new int[cells];
+            children = new int[cells];
+            cost = new int[cells];
+            queue = new int[cells];
+            queueCost = new int[cells];
+        }
+
+        void measure(MazeView maze, int enemyTicks, int playerTicks) {
+            rows = maze.rows();
+            cols = maze.cols();
+            int cells = rows * cols;
+            if (dist.length < cells) {
+                open = new byte[cells];
+                dist = new int[cells];
+                part = new int[cells];
+                parent = new int[cells];
+                children = new int[cells];
+                cost = new int[cells];
+                queue = new int[cells];
+                queueCost = new int[cells];
+            }
+
+            offset[0] = -cols;
+            offset[1] = cols;
+            offset[2] = -1;
+            offset[3] = 1;
+
+            // open directions, then walls and dead ends from them
+            Arrays.fill(open, 0, cells, (byte) 0);
+            int openWalls = 0;
+            for (int r = 0, cell = 0; r < rows; r++) {
+                for (int c = 0; c < cols; c++, cell++) {
+                    if (c < cols - 1 && !maze.hasRightWall(r, c)) {
+                        open[cell] |= 1 << 3;
+                        open[cell + 1] |= 1 << 2;
+                        openWalls++;
+                    }
+                    if (r < rows - 1 && !maze.hasBottomWall(r, c)) {
+                        open[cell] |= 1 << 1;
+                        open[cell + cols] |= 1;
+                        openWalls++;
+                    }
+                }
+            }
+            deadEnds = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                if (Integer.bitCount(open[cell]) == 1) deadEnds++;
+            }
+
+            // BFS tree from the start: path length and branching
+            Arrays.fill(dist, 0, cells, -1);
+            Arrays.fill(part, 0, cells, -1);
+            Arrays.fill(children, 0, cells, 0);
+            int reached = bfs(0, 0);
+            path = dist[cells - 1];
+            int inner = 0;
+            for (int i = 0; i < reached; i++) {
+                if (children[queue[i]] > 0) inner++;
+            }
+            branching = inner == 0 ? 0 : (double) (reached - 1) / inner;
+
+            // anything the start's BFS missed is another connected part, needed for the loop count.
+            // their BFS writes distances from their own first cell, part[] tells those apart
+            int parts = 1;
+            for (int cell = 0; cell < cells; cell++) {
+                if (part[cell] >= 0) continue;
+                bfs(cell, parts++);
+            }
+            loops = openWalls - cells + parts;
+
+            intercept = path < 0 ? 0 : interceptShare(enemyTicks, playerTicks);
+        }
+
+        // plain BFS from src over cells not in a part yet, marks part/dist/parent/children, leaves the visit order
+        // in queue[0, n)
+        private int bfs(int src, int id) {
+            int head = 0, tail = 0;
+            part[src] = id;
+            dist[src] = 0;
+            parent[src] = -1;
+            queue[tail++] = src;
+            while (head < tail) {
+                int cell = queue[head++];
+                for (int dirs = open[cell]; dirs != 0; dirs &= dirs - 1) {
+                    int n = cell + offset[Integer.numberOfTrailingZeros(dirs)];
+                    if (part[n] >= 0) continue;
+                    part[n] = id;
+                    dist[n] = dist[cell] + 1;
+                    parent[n] = cell;
+                    children[cell]++;
+                    queue[tail++] = n;
+                }
+            }
+            return tail;
+        }
+
+        // the player reaches the i-th cell of its route at tick i * playerTicks, an enemy d steps away from that
+        // cell gets there at tick d * enemyTicks. an enemy spawned on x can intercept if, for some route cell
+        // before the exit, d(x, cell) * enemyTicks <= i * playerTicks, i.e. if
+        //   min over i of (d(x, route[i]) * enemyTicks - i * playerTicks) <= 0
+        // that minimum is a multi-source shortest path where route[i] starts at -i * playerTicks. every edge
+        // costs the same, so merging the sources (sorted by start cost) with a FIFO queue gives a Dijkstra
+        // in linear time, no heap needed. keys only ever come out in increasing order, so each cell is queued
+        // at most once from the queue side, a source that later lowers it just leaves a stale entry.
+        private double interceptShare(int enemyTicks, int playerTicks) {
+            int cells = rows * cols;
+            int exit = cells - 1;
+            int routeLength = dist[exit];
+            // route[i] = i-th cell from the start, walked back from the exit over the BFS parents
+            int[] route = children; // branching is done with it, reuse as scratch
+            for (int cell = parent[exit], i = routeLength - 1; cell >= 0; cell = parent[cell], i--) {
+                route[i] = cell;
+            }
+
+            Arrays.fill(cost, 0, cells, Integer.MAX_VALUE);
+            int head = 0, tail = 0;
+            int next = routeLength - 1; // sources are taken from the cheapest (closest to the exit) down to the start
+            while (next >= 0 || head < tail) {
+                int cell, c;
+                if (next >= 0 && (head == tail || -next * playerTicks <= queueCost[head])) {
+                    cell = route[next];
+                    c = -next * playerTicks;
+                    next--;
+                    if (c >= cost[cell]) continue;
+                    cost[cell] = c;
+                } else {
+                    cell = queue[head];
+                    c = queueCost[head++];
+                    if (c != cost[cell]) continue; // improved by a source after it was queued
+                }
+                int nc = c + enemyTicks;
+                for (int dirs = open[cell]; dirs != 0; dirs &= dirs - 1) {
+                    int n = cell + offset[Integer.numberOfTrailingZeros(dirs)];
+                    if (nc >= cost[n]) continue;
+                    cost[n] = nc;
+                    queue[tail] = n;
+                    queueCost[tail++] = nc;
+                }
+            }
+
+            // enemies spawn on cells the start can reach at least max(3, max(rows, cols) / 2) steps (path distance)
+            // from it, or on the farthest cells if none is that far
+            int minDist = Math.max(3, Math.max(rows, cols) / 2);
+            int farthest = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                if (part[cell] == 0) farthest = Math.max(farthest, dist[cell]);
+            }
+            minDist = Math.min(minDist, farthest);
+            int spawnable = 0, intercepting = 0;
+            for (int cell = 0; cell < cells; cell++) {
+                if (part[cell] != 0 || dist[cell] < minDist) continue; // not reachable, or too close
+                spawnable++;
+                if (cost[cell] <= 0) intercepting++;
+            }
+            return spawnable == 0 ? 0 : (double) intercepting / spawnable;
+        }
+    }
+
+    private static double[] toDouble(int[] values) {
+        double[] d = new double[values.length];
+        for (int i = 0; i < values.length; i++) d[i] = values[i];
+        return d;
+    }
+
+    private static void summary(String name, double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        double sum = 0;
+        for (double v : sorted) sum += v;
+        int n = sorted.length;
+        System.out.printf("%-10s mean %10.3f  min %10.3f  p50 %10.3f  p90 %10.3f  max %10.3f%n",
+                name, sum / n, sorted[0], sorted[n / 2], sorted[Math.min(n - 1, n * 9 / 10)], sorted[n - 1]);
+    }
+
+    // 10 equal-width buckets between the smallest and largest value
+    private static void histogram(String name, double[] values) {
+        double min = Double.MAX_VALUE, max = -Double.MAX_VALUE;
+        for (double v : values) {
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+        }
+        int[] buckets = new int[10];
+        for (double v : values) {
+            int b = max == min ? 0 : (int) ((v - min) / (max - min) * buckets.length);
+            buckets[Math.min(buckets.length - 1, b)]++;
+        }
+        int most = Arrays.stream(buckets).max().getAsInt();
+        System.out.println(name + ":");
+        for (int b = 0; b < buckets.length; b++) {
+            double lo = min + (max - min) * b / buckets.length;
+            double hi = min + (max - min) * (b + 1) / buckets.length;
+            System.out.printf("  %10.3f - %-10.3f %7d %s%n", lo, hi, buckets[b], "#".repeat(buckets[b] * 40 / most));
+        }
+    }
+}
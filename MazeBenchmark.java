@@ -0,0 +1,137 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// Benchmarks for generation, pathfinding, printing and maze files, so changes to them can be compared against a baseline.
+// run: java MazeBenchmark [sizes...]   (default sizes 64 256 1024, every maze is square)
+// every maze comes from the same fixed seed, so two runs measure exactly the same work.
+// reports ops/sec, bytes allocated per op and allocation rate. allocation is read for the benchmark thread only,
+// so the fork-join workers used by generateMazeParallel don't show up in its numbers.
+// the tracked baseline runs under JMH (gradle jmh, see build.gradle) through jmhCases.
+public class MazeBenchmark {
+    private static final long SEED = 20240501L;
+    private static final long WARMUP_NANOS = 1_000_000_000L;
+    private static final long MEASURE_NANOS = 2_000_000_000L;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // results are folded into here so the JIT can't throw the benchmarked work away
+    private static volatile long sink;
+
+    interface Op {
+        long run() throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int[] sizes = {64, 256, 1024};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) sizes[i] = Integer.parseInt(args[i]);
+        }
+
+        PrintStream nowhere = new PrintStream(OutputStream.nullOutputStream());
+
+        System.out.printf("%-38s %6s %14s %14s %12s%n", "benchmark", "size", "ops/s", "bytes/op", "alloc MB/s");
+        for (int n : sizes) {
+            bench("MazeGeneratorA.generateMaze", n, () -> checksum(MazeGeneratorA.generateMaze(n, n, SEED)));
+            bench("MazeGeneratorA.generateMazeParallel", n, () -> checksum(MazeGeneratorA.generateMazeParallel(n, n, SEED)));
+            // includes the loop, corridor and 2x2 passes on top of the perfect maze
+            bench("MazeGenerator.generateMaze", n, () -> checksum(MazeGenerator.generateMaze(n, n, SEED)));
+
+            MazeGrid maze = MazeGenerator.generateMaze(n, n, SEED);
+            // worst case for the game: enemy in the far corner chasing a player at the start
+            for (String name : new String[]{"bfs", "astar", "bidi", "corridor", "table"}) {
+                PathFinder finder = PathFinder.forName(name);
+                bench("PathFinder." + name, n, () -> finder.nextStep(maze, n - 1, n - 1, 0, 0));
+                // a nearby target is where the targeted searches pay off
+                bench("PathFinder." + name + " (near)", n, () -> finder.nextStep(maze, n / 2, n / 2, n / 2 + 3, n / 2 + 3));
+            }
+            // the first query on a new maze, what a table pays per expansion: one row in pairs, A* on a big looped maze
+            bench("RoutingTable.build", n, () ->
+                    new RoutingTable(RoutingTable.DEFAULT_BUDGET).nextStep(maze, n - 1, n - 1, 0, 0));
+            // a perfect maze gets the tree layout at any size the budget allows
+            MazeGrid perfect = MazeGeneratorA.generateMaze(n, n, SEED);
+            bench("RoutingTable.build (perfect maze)", n, () ->
+                    new RoutingTable(RoutingTable.DEFAULT_BUDGET).nextStep(perfect, n - 1, n - 1, 0, 0));
+            DistanceField field = new DistanceField();
+            bench("DistanceField.rebuild", n, () -> {
+                field.rebuild(maze, 0, 0);
+                return field.nextStep(n - 1, n - 1);
+            });
+            // player stepping back and forth between two cells, the common case between enemy ticks
+            field.rebuild(maze, 0, 0);
+            int[] stepTo = {maze.hasRightWall(0, 0) ? n : 1};
+            bench("DistanceField.update (player step)", n, () -> {
+                int next = stepTo[0];
+                stepTo[0] = next == 0 ? (maze.hasRightWall(0, 0) ? n : 1) : 0;
+                field.update(maze, next / n, next % n);
+                return field.lastUpdateCells();
+            });
+            bench("MazeGeneratorA.printMaze", n, () -> {
+                MazeGeneratorA.printMaze(maze, nowhere);
+                return 1;
+            });
+            Path file = saveTemp(maze);
+            bench("MazeFile.load", n, () -> checksum(MazeFile.load(file)));
+            bench("MazeFile.open", n, () -> checksum(MazeFile.open(file)));
+            Files.delete(file);
+        }
+    }
+
+    // the cases the JMH benchmarks in jmh/ run, by name, on an n x n maze. JMH won't take benchmarks in the default
+    // package and a named package can't see this one, so they get these through reflection, as plain JDK types
+    public static Map<String, LongSupplier> jmhCases(int n) {
+        MazeGrid maze = MazeGenerator.generateMaze(n, n, SEED);
+        PathFinder bfs = new PathFinder.Bfs();
+        PrintStream nowhere = new PrintStream(OutputStream.nullOutputStream());
+        Map<String, LongSupplier> cases = new LinkedHashMap<>();
+        cases.put("MazeGeneratorA.generateMaze", () -> checksum(MazeGeneratorA.generateMaze(n, n, SEED)));
+        cases.put("MazeGenerator.generateMaze", () -> checksum(MazeGenerator.generateMaze(n, n, SEED)));
+        cases.put("PathFinder.bfs", () -> bfs.nextStep(maze, n - 1, n - 1, 0, 0));
+        cases.put("MazeGeneratorA.printMaze", () -> {
+            MazeGeneratorA.printMaze(maze, nowhere);
+            return 1;
+        });
+        return cases;
+    }
+
+    private static Path saveTemp(MazeView maze) throws IOException {
+        Path file = Files.createTempFile("bench", ".maze");
+        MazeFile.save(maze, SEED, file);
+        return file;
+    }
+
+    private static void bench(String name, int size, Op op) throws IOException {
+        // warm up so the JIT has compiled the hot paths before anything is timed
+        long end = System.nanoTime() + WARMUP_NANOS;
+        while (System.nanoTime() < end) sink += op.run();
+
+        long threadId = Thread.currentThread().getId();
+        long allocBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        long ops = 0;
+        long now;
+        do {
+            sink += op.run();
+            ops++;
+            now = System.nanoTime();
+        } while (now - start < MEASURE_NANOS);
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocBefore;
+
+        double seconds = (now - start) / 1e9;
+        System.out.printf("%-38s %6d %14.2f %14d %12.1f%n",
+                name, size, ops / seconds, allocated / ops, allocated / seconds / (1024 * 1024));
+    }
+
+    private static long checksum(MazeView grid) {
+        int r = grid.rows() - 1, c = grid.cols() - 1;
+        return (grid.hasRightWall(r / 2, c / 2) ? 1 : 0) + (grid.hasBottomWall(r / 3, c / 3) ? 2 : 0);
+    }
+}
@@ -0,0 +1,225 @@
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Binary maze files: a 32 byte header, then the right wall bitset, then the bottom wall bitset.
+// the bitsets are exactly PackedMazeGrid's: bit r * cols + c, packed into little-endian longs, so a cell costs
+// 2 bits on disk too (a 1000 x 1000 maze is 250KB, against about 8MB of printMaze ASCII).
+//
+// header, all little-endian:
+//   0  int   magic, "MAZE" on disk
+//   4  int   version
+//   8  int   rows
+//   12 int   cols
+//   16 long  seed the maze was generated from (0 if it has none)
+//   24 long  reserved, 0 (keeps the bitsets 8 byte aligned)
+//
+// open maps the file read-only and reads walls straight out of the mapping, so opening costs the same for any
+// size and the OS pages in only the parts of the maze that actually get read. load copies it into a
+// PackedMazeGrid instead, for mazes that get edited or read everywhere anyway.
+public final class MazeFile implements MazeView {
+    static final int MAGIC = 0x455A414D; // 'M' 'A' 'Z' 'E' as a little-endian int
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+    private static final int REGION_SHIFT = 30; // mapped in pieces of at most 1GB, a single mapping tops out at 2GB
+    private static final long REGION_MASK = (1L << REGION_SHIFT) - 1;
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private final int rows, cols;
+    private final long seed;
+    private final long bottomOffset; // where the bottom wall bitset starts, counted from the end of the header
+    private final MappedByteBuffer[] regions;
+
+    private MazeFile(int rows, int cols, long seed, MappedByteBuffer[] regions) {
+        this.rows = rows;
+        this.cols = cols;
+        this.seed = seed;
+        this.bottomOffset = words(rows, cols) * 8;
+        this.regions = regions;
+    }
+
+    // maps the file, the walls are read lazily out of the mapping (which stays valid after the file is closed)
+    public static MazeFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(channel, file);
+            int rows = header.getInt(8), cols = header.getInt(12);
+            long payload = channel.size() - HEADER_BYTES;
+            MappedByteBuffer[] regions = new MappedByteBuffer[(int) ((payload + REGION_MASK) >>> REGION_SHIFT)];
+            for (int i = 0; i < regions.length; i++) {
+                long start = (long) i << REGION_SHIFT;
+                regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_BYTES + start,
+                        Math.min(REGION_MASK + 1, payload - start));
+            }
+            return new MazeFile(rows, cols, header.getLong(16), regions);
+        }
+    }
+
+    // reads the whole file into an editable grid
+    public static PackedMazeGrid load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(channel, file);
+            int rows = header.getInt(8), cols = header.getInt(12);
+            long words = words(rows, cols);
+            if (words > Integer.MAX_VALUE - 8) throw new IOException(file + " is too big to load, open it instead");
+            long[] right = new long[(int) words];
+            long[] bottom = new long[(int) words];
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            readWords(channel, buffer, right);
+            readWords(channel, buffer, bottom);
+            return new PackedMazeGrid(rows, cols, right, bottom);
+        }
+    }
+
+    // writes any MazeView, a PackedMazeGrid (that hasn't grown sideways) is copied word by word, anything else is
+    // packed cell by cell as it's written, so even a ChunkedMazeWorld far bigger than memory can be saved. it goes
+    // to a temporary file next to the target that is moved over it at the end: a crash never leaves half a maze
+    // behind, and a maze opened from the file being replaced keeps reading its old mapping
+    public static void save(MazeView maze, long seed, Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(maze.rows()).putInt(maze.cols()).putLong(seed).putLong(0);
+            if (maze instanceof PackedMazeGrid && ((PackedMazeGrid) maze).stride() == maze.cols()) {
+                PackedMazeGrid packed = (PackedMazeGrid) maze;
+                int words = (int) words(maze.rows(), maze.cols()); // a grown grid may have capacity past that
+                writeWords(channel, buffer, packed.rightWords(), words);
+                writeWords(channel, buffer, packed.bottomWords(), words);
+            } else {
+                writeCells(channel, buffer, maze, true);
+                writeCells(channel, buffer, maze, false);
+            }
+            drain(channel, buffer);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public long seed() { return seed; }
+
+    @Override public int rows() { return rows; }
+    @Override public int cols() { return cols; }
+
+    @Override
+    public boolean hasRightWall(int r, int c) {
+        return bit(0, (long) r * cols + c);
+    }
+
+    @Override
+    public boolean hasBottomWall(int r, int c) {
+        return bit(bottomOffset, (long) r * cols + c);
+    }
+
+    // bit i of a little-endian long bitset is bit i % 8 of byte i / 8, so single bytes can be read
+    private boolean bit(long offset, long i) {
+        long at = offset + (i >>> 3);
+        return (regions[(int) (at >>> REGION_SHIFT)].get((int) (at & REGION_MASK)) & (1 << (i & 7))) != 0;
+    }
+
+    private static long words(int rows, int cols) {
+        return ((long) rows * cols + 63) >>> 6;
+    }
+
+    // checks everything the header promises before any of it is trusted
+    private static ByteBuffer readHeader(FileChannel channel, Path file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining()) {
+            if (channel.read(header) < 0) throw new IOException(file + " is not a maze file");
+        }
+        if (header.getInt(0) != MAGIC) throw new IOException(file + " is not a maze file");
+        int version = header.getInt(4);
+        if (version != VERSION) throw new IOException(file + " has unsupported version " + version);
+        int rows = header.getInt(8), cols = header.getInt(12);
+        if (rows <= 0 || cols <= 0) throw new IOException(file + " has a bad size " + rows + " x " + cols);
+        long expected = HEADER_BYTES + words(rows, cols) * 16;
+        if (channel.size() != expected) {
+            throw new IOException(file + " is " + channel.size() + " bytes, a " + rows + " x " + cols
+                    + " maze takes " + expected);
+        }
+        return header;
+    }
+
+    private static void readWords(FileChannel channel, ByteBuffer buffer, long[] words) throws IOException {
+        for (int w = 0; w < words.length; ) {
+            buffer.clear().limit((int) Math.min(BUFFER_BYTES, (long) (words.length - w) * 8));
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) throw new IOException("maze file ended early");
+            }
+            buffer.flip();
+            LongBuffer longs = buffer.asLongBuffer();
+            int n = longs.remaining();
+            longs.get(words, w, n);
+            w += n;
+        }
+    }
+
+    private static void writeWords(FileChannel channel, ByteBuffer buffer, long[] words, int count) throws IOException {
+        for (int w = 0; w < count; w++) {
+            if (!buffer.hasRemaining()) drain(channel, buffer);
+            buffer.putLong(words[w]);
+        }
+    }
+
+    // packs one bitset straight from the grid, walking the cells in bit order
+    private static void writeCells(FileChannel channel, ByteBuffer buffer, MazeView maze, boolean right)
+            throws IOException {
+        int rows = maze.rows(), cols = maze.cols();
+        long word = 0;
+        int bit = 0;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                if (right ? maze.hasRightWall(r, c) : maze.hasBottomWall(r, c)) word |= 1L << bit;
+                if (++bit == 64) {
+                    if (!buffer.hasRemaining()) drain(channel, buffer);
+                    buffer.putLong(word);
+                    word = 0;
+                    bit = 0;
+                }
+            }
+        }
+        if (bit > 0) {
+            if (!buffer.hasRemaining()) drain(channel, buffer);
+            buffer.putLong(word | -1L << bit); // unused tail bits set, like a fresh PackedMazeGrid
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) channel.write(buffer);
+        buffer.clear();
+    }
+
+    public static void main(String[] args) throws IOException {
+        // java MazeFile save <file> <rows> <cols> [seed]   generates a maze (loops and all) and saves it
+        // java MazeFile print <file>                      prints a saved maze like MazeGeneratorA does
+        // java MazeFile info <file>
+        if (args.length >= 4 && args[0].equals("save")) {
+            int rows = Integer.parseInt(args[2]);
+            int cols = Integer.parseInt(args[3]);
+            long seed = args.length >= 5 ? Long.parseLong(args[4]) : MazeGeneratorA.randomSeed();
+            MazeView maze = (long) rows * cols >= GameEngine.CHUNKED_CELLS
+                    ? new ChunkedMazeWorld(rows, cols, seed)
+                    : MazeGenerator.generateMaze(rows, cols, seed);
+            save(maze, seed, Paths.get(args[1]));
+        } else if (args.length == 2 && args[0].equals("print")) {
+            MazeGeneratorA.printMaze(open(Paths.get(args[1])), new FileOutputStream(FileDescriptor.out));
+        } else if (args.length == 2 && args[0].equals("info")) {
+            MazeFile maze = open(Paths.get(args[1]));
+            System.out.printf("%d x %d maze, seed %d%n", maze.rows(), maze.cols(), maze.seed());
+        } else {
+            System.err.println("usage: java MazeFile save <file> <rows> <cols> [seed] | print <file> | info <file>");
+        }
+    }
+}
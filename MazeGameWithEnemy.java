@@ -1,7 +1,13 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.GlyphVector;
+import java.awt.image.BufferedImage;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 // inspired by maze generator made in CIS36A in Spring2024. Uses some previous code.
 // MazeGameWithEnemy - version with expansion rules:
 // first 4 collisions -> horizontal expansions (add columns to right)
@@ -41,216 +47,192 @@ class GameFrame extends JFrame {
     }
 }
 
-// Cell
-class Cell {
-    boolean rightWall = true;   // wall to the right of the cell
-    boolean bottomWall = true;  // wall to the bottom of the cell
-}
-
-// Enemy
-class Enemy {
-    int row, col;
-    public Enemy(int r, int c) { row = r; col = c; }
-}
-
-// Maze generator: randomized DFS with controlled loops
-class MazeGenerator {
-    // returns rows x cols maze
-    public static Cell[][] generateMaze(int rows, int cols){
-        Cell[][] maze = new Cell[rows][cols];
-        for(int r=0; r<rows; r++)
-            for(int c=0; c<cols; c++)
-                maze[r][c] = new Cell();
-
-
-        // 1. generate perfect maze (DFS/Union-Find)
+// Game Panel (drawing, input)
+// the rules live in a GameEngine run on a GameLoop thread: key presses and the replay button are queued as
+// commands for it, and after each tick it hands an immutable GameSnapshot back to the event thread, which only
+// ever draws that. everything down to the paint code below belongs to the loop thread once the game has started.
+class GamePanel extends JPanel implements KeyListener {
 
-        UnionFind uf = new UnionFind(rows * cols);
-        Random rand = new Random();
+    // one simulation step every 25ms, enemies move every 17th step (425ms, the old enemy timer)
+    private static final int TICK_MILLIS = GameEngine.TICK_MILLIS;
+    private static final int CMD_RESTART = -1; // command from the replay button, key commands are key codes
 
-        int[][] walls = new int[(rows * cols) * 2][3];
-        int wc = 0;
+    private final GameEngine engine;
+    private final GameState state; // engine.state
+    private final int cellSize = 36;
 
-        for(int r = 0; r < rows; r++) {
-            for(int c = 0; c < cols; c++) {
-                if(c < cols - 1) walls[wc++] = new int[]{r*cols + c, r*cols + c + 1, 1};
-                if(r < rows - 1) walls[wc++] = new int[]{r*cols + c, (r+1)*cols + c, 0};
-            }
-        }
+    private final GameLoop loop = new GameLoop(TICK_MILLIS, this::simulationTick, this::publishSnapshot);
+    private final ConcurrentLinkedQueue<Integer> commands = new ConcurrentLinkedQueue<>();
+    private boolean changed = true;  // something visible changed since the last snapshot
 
-        // shuffle
-        for(int i = wc - 1; i > 0; i--) {
-            int j = rand.nextInt(i + 1);
-            int[] t = walls[i]; walls[i] = walls[j]; walls[j] = t;
-        }
+    // Victory animation
+    private float victoryScale = 1f;      // animated "VICTORY!" size
+    private float scaleDirection = 0.02f * TICK_MILLIS / 30; // bounce speed, 0.02 per 30ms like the old animation timer
 
-        // carve perfect maze
-        for(int i = 0; i < wc; i++) {
-            int a = walls[i][0];
-            int b = walls[i][1];
-            boolean right = walls[i][2] == 1;
-
-            if(uf.union(a, b)) {
-                int r = a / cols;
-                int c = a % cols;
-                if(right) maze[r][c].rightWall = false;
-                else      maze[r][c].bottomWall = false;
-            }
-        }
+    // High score tracking
+    private double bestTime = -1;      // store the best time in seconds
+    private boolean newRecord = false; // mark if new record was set
+    private double lastTimeTaken = 0;  // stores time for the last completed run
 
-        // 2. loop creation
 
-        int softLoops = (rows * cols) / 12;  // sparse & safe
-        for(int i = 0; i < softLoops; i++){
-            int r = rand.nextInt(rows - 1);
-            int c = rand.nextInt(cols - 1);
+    private JButton replayButton; // appears on victory or game over
 
-            // small chance to carve, keeping structure intact, not too many openings
-            if(rand.nextInt(100) < 30) {
-                maze[r][c].rightWall = false;
-            }
-            if(rand.nextInt(100) < 30) {
-                maze[r][c].bottomWall = false;
-            }
+    // event thread side: the snapshot on screen, and the newest one waiting to be applied
+    private GameSnapshot view;
+    private final AtomicReference<GameSnapshot> pending = new AtomicReference<>();
+    private final AtomicBoolean applyQueued = new AtomicBoolean();
+    private final Runnable applyPending = this::applyPending;
+    private volatile boolean showStats = false; // T toggles the loop timing overlay
+    private static final Font STATS_FONT = new Font("Monospaced", Font.PLAIN, 12);
+    private final Rectangle visibleBounds = new Rectangle();
+
+    // paint resources, built once so repaints (every tick while the victory text pulses) don't allocate
+    private static final BasicStroke WALL_STROKE = new BasicStroke(4f);
+    private static final Color VICTORY_SHADE = new Color(0, 0, 0, 180);
+    private static final Color GAME_OVER_SHADE = new Color(0, 0, 0, 200);
+    private static final Font RECORD_FONT = new Font("Arial", Font.BOLD, 30);
+    private static final Font TIME_FONT = new Font("Arial", Font.PLAIN, 24);
+    private static final Font GAME_OVER_FONT = new Font("Arial", Font.BOLD, 64);
+    private static final Font REASON_FONT = new Font("Arial", Font.PLAIN, 20);
+    // "VICTORY!" is 60pt * victoryScale, which bounces between 0.8 and 1.3, so every size it can hit is made up front
+    private static final int PULSE_MIN_SIZE = 48, PULSE_MAX_SIZE = 79;
+    private static final Font[] PULSE_FONTS = new Font[PULSE_MAX_SIZE - PULSE_MIN_SIZE + 1];
+    static {
+        Font base = new Font("Arial", Font.BOLD, 60);
+        for (int size = PULSE_MIN_SIZE; size <= PULSE_MAX_SIZE; size++) {
+            PULSE_FONTS[size - PULSE_MIN_SIZE] = base.deriveFont((float) size);
         }
+    }
 
-        // Main corridors
-
-        int midR = rows / 2;
-        int midC = cols / 2;
+    // overlay text laid out as glyphs (see layoutOverlayText), with their widths for centering
+    private FontRenderContext textFrc;
+    private final GlyphVector[] pulseText = new GlyphVector[PULSE_FONTS.length];
+    private final float[] pulseWidth = new float[PULSE_FONTS.length];
+    private GlyphVector recordText, timeText, bestText, gameOverText, reasonText;
+    private float recordWidth, timeWidth, bestWidth, gameOverWidth, reasonWidth;
+    private final Rectangle clipBounds = new Rectangle();
+
+    // maze background cache: the walls are rendered in tiles of TILE_CELLS x TILE_CELLS cells, and only the tiles
+    // under the current clip (the JScrollPane viewport or a dirty cell) are ever rendered or drawn.
+    // at most MAX_CACHED_TILES images are kept, the least recently drawn one is recycled for the next tile.
+    private static final int REPAINT_CELLS = 64; // enemy cells that still get repainted one by one
+    private static final int TILE_CELLS = 8;
+    private static final int MAX_CACHED_TILES = 96;
+    private BufferedImage[] tiles = new BufferedImage[0]; // row-major over tiles, null = not rendered
+    private int tileRows, tileCols;
+    private final int[] cachedTiles = new int[MAX_CACHED_TILES]; // which tile each cache slot holds
+    private final long[] tileLastUsed = new long[MAX_CACHED_TILES];
+    private int cachedTileCount = 0;
+    private long paintCount = 0;
 
-        // horizontal central corridor
-        for(int c = 0; c < cols - 1; c++){
-            if(rand.nextInt(100) < 35)
-                maze[midR][c].rightWall = false;
-        }
 
-        // vertical central corridor
-        for(int r = 0; r < rows - 1; r++){
-            if(rand.nextInt(100) < 35)
-                maze[r][midC].bottomWall = false;
-        }
+    public GamePanel(int initialRows, int initialCols) {
+        this(initialRows, initialCols, MazeGeneratorA.randomSeed());
+    }
 
-        // Remove accidental 2×2 solid blocks, still occurs don't know how to fix
+    // same seed + size = same starting maze, enemy spawn and expansion sections
+    public GamePanel(int initialRows, int initialCols, long seed) {
+        engine = new GameEngine(initialRows, initialCols, seed);
+        state = engine.state;
 
-        for(int r = 0; r < rows - 1; r++){
-            for(int c = 0; c < cols - 1; c++){
-                boolean a = maze[r][c].rightWall;
-                boolean b = maze[r+1][c].rightWall;
-                boolean d = maze[r][c].bottomWall;
-                boolean e = maze[r][c+1].bottomWall;
+        setPreferredSize(new Dimension(state.cols * cellSize, state.rows * cellSize));
+        setBackground(Color.LIGHT_GRAY);
+        setFocusable(true);
+        addKeyListener(this);
 
-                // If a full 2×2 block is closed, open 1 random spot
-                if(a && b && d && e){
-                    if(rand.nextBoolean()) maze[r][c].rightWall = false;
-                    else                   maze[r][c].bottomWall = false;
-                }
-            }
-        }
+        setupReplayButton();
 
-        return maze;
+        // first frame comes straight from here, after this only the loop thread touches the game state
+        view = snapshot();
+        loop.start();
     }
 
-    static class UnionFind {
-        int[] parent;
-
-        UnionFind(int size){
-            parent = new int[size];
-            for(int i=0;i<size;i++) parent[i] = i;
-        }
-
-        int find(int x){
-            if(parent[x] != x)
-                parent[x] = find(parent[x]);
-            return parent[x];
+    // one fixed step: apply queued input, then enemies (slower so player can escape) or the victory animation
+    private void simulationTick() {
+        Integer command;
+        while ((command = commands.poll()) != null) {
+            handleCommand(command);
         }
 
-        boolean union(int a, int b){
-            int pa = find(a);
-            int pb = find(b);
-            if(pa == pb) return false;
-            parent[pb] = pa;
-            return true;
+        if (state.victoryMode) {
+            // Victory animation (pulsating text)
+            victoryScale += scaleDirection;
+            if (victoryScale > 1.3f || victoryScale < 0.8f)
+                scaleDirection *= -1;
+            changed = true;
+        } else if (engine.tick()) {
+            changed = true;
         }
     }
-}
-
-// Game Panel (drawing, input)
-class GamePanel extends JPanel implements KeyListener {
-
-    private Cell[][] maze;
-    private int rows, cols;
-    private final int cellSize = 36;
-
-    private int playerRow = 0, playerCol = 0;
-    private java.util.List<Enemy> enemies = new ArrayList<>();
-    private final Random rnd = new Random();
-
-    private javax.swing.Timer enemyTimer;
-    private javax.swing.Timer victoryAnimTimer;
-
-    // Victory & Game Over State
-    private boolean victoryMode = false;
-    private boolean gameOver = false;
-    private float victoryScale = 1f;      // animated "VICTORY!" size
-    private float scaleDirection = 0.02f; // bounce speed
-
-    // High score tracking
-    private double bestTime = -1;      // store the best time in seconds
-    private long startTime;            // track when current game started
-    private boolean newRecord = false; // mark if new record was set
-
-
-    private JButton replayButton; // appears on victory or game over
-
-    // expansion counters and limits
-    private int horizontalExpansions = 0;
-    private int verticalExpansions = 0;
-    private final int maxHorizontal = 4; // max horiz and vert = 7 total
-    private final int maxVertical = 3;
-    private double lastTimeTaken = 0; // stores time for the last completed run
-
-    private boolean isPaused = false;
 
+    // after a batch of ticks: copy out what changed and have the event thread pick up the newest copy.
+    // several snapshots published before the event thread gets to them cost a single invokeLater
+    private void publishSnapshot() {
+        if (!changed && !showStats) return;
+        changed = false;
+        pending.set(snapshot());
+        if (applyQueued.compareAndSet(false, true)) SwingUtilities.invokeLater(applyPending);
+    }
 
-    public GamePanel(int initialRows, int initialCols) {
-        this.rows = Math.max(4, initialRows);
-        this.cols = Math.max(4, initialCols);
-        maze = MazeGenerator.generateMaze(rows, cols);
-
-        setPreferredSize(new Dimension(cols * cellSize, rows * cellSize));
-        setBackground(Color.LIGHT_GRAY);
-        setFocusable(true);
-        addKeyListener(this);
+    private GameSnapshot snapshot() {
+        int[] enemyRows = new int[state.enemies.occupiedCells()], enemyCols = new int[enemyRows.length];
+        state.enemies.copyOccupied(enemyRows, enemyCols);
+        return new GameSnapshot(state.maze, state.mazeVersion, state.playerRow, state.playerCol, enemyRows, enemyCols,
+                state.paused, state.victoryMode, state.gameOver, newRecord, victoryScale, lastTimeTaken, bestTime, loop);
+    }
 
-        spawnEnemyFarFromPlayer();
+    private void applyPending() {
+        applyQueued.set(false);
+        GameSnapshot next = pending.getAndSet(null);
+        if (next != null) applySnapshot(next);
+    }
 
-        // Enemy movement timer (slower so player can escape), adjustable for difficulty settings?
-        enemyTimer = new javax.swing.Timer(425, e -> {
-            if (isPaused) return;
-            if (!victoryMode && !gameOver) {
-                moveEnemiesBFS();
-                checkEnemyCollisions();
+    // event thread: swap in the new snapshot and repaint only what differs from the one on screen
+    private void applySnapshot(GameSnapshot next) {
+        GameSnapshot prev = view;
+        view = next;
+        boolean playerMoved = prev.playerRow != next.playerRow || prev.playerCol != next.playerCol;
+
+        if (next.mazeVersion != prev.mazeVersion) {
+            invalidateTiles();
+            if (next.rows != prev.rows || next.cols != prev.cols) {
+                setPreferredSize(new Dimension(next.cols * cellSize, next.rows * cellSize));
+                revalidate();
             }
             repaint();
-
-        });
-        enemyTimer.start();
-
-        // Victory animation (pulsating text)
-        victoryAnimTimer = new javax.swing.Timer(30, e -> {
-            if (victoryMode) {
-                victoryScale += scaleDirection;
-                if (victoryScale > 1.3f || victoryScale < 0.8f)
-                    scaleDirection *= -1;
-                repaint();
+        } else if (next.victoryMode || next.gameOver || prev.victoryMode || prev.gameOver) {
+            repaint(); // overlay covers the whole panel
+        } else {
+            if (playerMoved) {
+                repaintCell(prev.playerRow, prev.playerCol);
+                repaintCell(next.playerRow, next.playerCol);
             }
-        });
-        victoryAnimTimer.start();
-
-        setupReplayButton();
-        startTime = System.currentTimeMillis();
+            if (!Arrays.equals(prev.enemyRows, next.enemyRows) || !Arrays.equals(prev.enemyCols, next.enemyCols)) {
+                if (prev.enemyRows.length + next.enemyRows.length > REPAINT_CELLS) {
+                    computeVisibleRect(visibleBounds); // a crowd moved, one repaint of the view beats a rectangle per cell
+                    repaint(visibleBounds);
+                } else {
+                    for (int i = 0; i < prev.enemyRows.length; i++) repaintCell(prev.enemyRows[i], prev.enemyCols[i]);
+                    for (int i = 0; i < next.enemyRows.length; i++) repaintCell(next.enemyRows[i], next.enemyCols[i]);
+                }
+            }
+        }
 
+        if (playerMoved) {
+            scrollRectToVisible(new Rectangle(next.playerCol * cellSize, next.playerRow * cellSize, cellSize, cellSize));
+        }
+        if (next.lastTimeTaken != prev.lastTimeTaken || next.bestTime != prev.bestTime) {
+            timeText = null; // times changed, the overlay text gets laid out again on the next paint
+        }
+        boolean showReplay = next.victoryMode || next.gameOver;
+        if (showReplay != replayButton.isVisible()) {
+            replayButton.setBounds(getWidth() / 2 - 60, getHeight() / 2 + 80, 120, 40);
+            replayButton.setVisible(showReplay);
+        }
+        if (showStats) {
+            computeVisibleRect(visibleBounds);
+            repaint(visibleBounds.x, visibleBounds.y, 420, 24);
+        }
     }
 
     private double loadHighScore() {
@@ -284,290 +266,57 @@ class GamePanel extends JPanel implements KeyListener {
         replayButton.setFocusable(false);
         replayButton.setVisible(false);
 
-        replayButton.addActionListener(e -> restartGame());
+        replayButton.addActionListener(e -> commands.add(CMD_RESTART));
 
         setLayout(null);
         add(replayButton);
     }
 
     private void restartGame() {
-        // reset state
-        victoryMode = false;
-        gameOver = false;
+        engine.restart();
         victoryScale = 1f;
-        horizontalExpansions = 0;
-        verticalExpansions = 0;
-
-        // reset maze & player
-        maze = MazeGenerator.generateMaze(rows, cols); // keep the current rows/cols size
-        playerRow = 0;
-        playerCol = 0;
-
-        // reset enemies
-        enemies.clear();
-        spawnEnemyFarFromPlayer();
-
-        replayButton.setVisible(false);
-
-        if (enemyTimer != null) enemyTimer.start();
-        repaint();
-    }
-
-    // enemy spawning
-    private void spawnEnemyFarFromPlayer() {
-        int minDist = Math.max(3, Math.max(rows, cols) / 2);
-        int er, ec;
-        int attempts = 0;
-        do {
-            er = rnd.nextInt(rows);
-            ec = rnd.nextInt(cols);
-            attempts++;
-            if (attempts > 300) break;
-        } while (Math.abs(er - playerRow) + Math.abs(ec - playerCol) < minDist);
-
-        enemies.add(new Enemy(er, ec));
-    }
-
-    // enemy movement
-    private void moveEnemiesBFS() {
-        if (isPaused) return;
-
-        for (Enemy en : enemies) {
-            Point step = bfsNextStep(en.row, en.col, playerRow, playerCol);
-            if (step != null) {
-                en.row = step.x;
-                en.col = step.y;
-            }
-        }
+        changed = true;
     }
-    // BFS calc for enemy movement stored in LL
-    private Point bfsNextStep(int sr, int sc, int tr, int tc) {
-        if (sr == tr && sc == tc) return null;
-
-        boolean[][] visited = new boolean[rows][cols];
-        Point[][] parent = new Point[rows][cols];
-        Queue<Point> q = new LinkedList<>();
-        q.add(new Point(sr, sc));
-        visited[sr][sc] = true;
-
-        int[] dr = {-1, 1, 0, 0};
-        int[] dc = {0, 0, -1, 1};
-
-        while (!q.isEmpty()) {
-            Point p = q.poll();
-            if (p.x == tr && p.y == tc) break;
-
-            for (int i = 0; i < 4; i++) {
-                int nr = p.x + dr[i], nc = p.y + dc[i];
-                if (nr < 0 || nr >= rows || nc < 0 || nc >= cols) continue;
-                if (visited[nr][nc]) continue;
-                if (isBlocked(p.x, p.y, nr, nc)) continue;
-
-                visited[nr][nc] = true;
-                parent[nr][nc] = p;
-                q.add(new Point(nr, nc));
-            }
-        }
-
-        if (!visited[tr][tc]) return null;
 
-        Point cur = new Point(tr, tc);
-        Point prev = parent[cur.x][cur.y];
-        while (prev != null && !(prev.x == sr && prev.y == sc)) {
-            cur = prev;
-            prev = parent[cur.x][cur.y];
-        }
-        return new Point(cur.x, cur.y);
-    }
-
-    // collision
-    private void checkEnemyCollisions() {
-        for (Enemy en : enemies) {
-            if (en.row == playerRow && en.col == playerCol) {
-                // expand according to current phase
-                expandMazeWithRules();
-                return;
-            }
+    // input, on the event thread: only queued here, the loop thread applies it at the start of its next tick
+    @Override
+    public void keyPressed(KeyEvent e) {
+        int code = e.getKeyCode();
+        if (code == KeyEvent.VK_T) {
+            showStats = !showStats;
+            repaint();
+        } else if (code == KeyEvent.VK_P || code == KeyEvent.VK_W || code == KeyEvent.VK_S
+                || code == KeyEvent.VK_A || code == KeyEvent.VK_D) {
+            commands.add(code);
         }
     }
 
-    // expansion with rules (horizontal then vertical then lose)
-    private void expandMazeWithRules() {
-        if (gameOver || victoryMode) return;
-
-        // Horizontal phase
-        if (horizontalExpansions < maxHorizontal) {
-            horizontalExpansions++;
-            expandHorizontally(4); // add 4 columns at a time
-            spawnEnemyInNewSectionSafelyHorizontal(4);
-            return;
-        }
-
-        // Vertical phase
-        if (verticalExpansions < maxVertical) {
-            verticalExpansions++;
-            expandVertically(3); // add 3 rows at bottom each time
-            spawnEnemyInNewSectionSafelyVertical(3);
+    private void handleCommand(int code) {
+        if (code == CMD_RESTART) {
+            restartGame();
             return;
         }
 
-        // If we reach here, 7 expansions, game over
-        gameOver = true;
-        if (enemyTimer != null) enemyTimer.stop();
-        replayButton.setBounds(getWidth() / 2 - 60, getHeight() / 2 + 80, 120, 40);
-        replayButton.setVisible(true);
-        repaint();
-    }
-
-    // horizontal expansion
-    private void expandHorizontally(int extraCols) {
-        Cell[][] newSection = MazeGenerator.generateMaze(rows, extraCols);
-        Cell[][] newMaze = new Cell[rows][cols + extraCols];
-
-        for (int r = 0; r < rows; r++)
-            for (int c = 0; c < cols; c++)
-                newMaze[r][c] = maze[r][c];
-
-        for (int r = 0; r < rows; r++)
-            for (int c = 0; c < extraCols; c++)
-                newMaze[r][cols + c] = newSection[r][c];
-
-        // more openings (6–10 evenly spaced)
-        int openings = 6 + rnd.nextInt(5); // 6–10 openings
-        for (int i = 0; i < openings; i++) {
-            int r = i * (rows - 1) / (openings - 1); // spread evenly vertically
-            newMaze[r][cols - 1].rightWall = false;
-        }
-
-        maze = newMaze;
-        cols += extraCols;
-
-        setPreferredSize(new Dimension(cols * cellSize, rows * cellSize));
-        revalidate();
-        repaint();
-    }
-
-
-    private void spawnEnemyInNewSectionSafelyHorizontal(int extraCols) {
-        int attempts = 0;
-        int er, ec;
-        int minDist = Math.max(3, Math.max(rows, cols) / 4);
-        do {
-            er = rnd.nextInt(rows);
-            ec = cols - extraCols + rnd.nextInt(extraCols);
-            attempts++;
-            if (attempts > 500) break;
-        } while (Math.abs(er - playerRow) + Math.abs(ec - playerCol) < minDist);
-        enemies.add(new Enemy(er, ec));
-    }
-
-    // vertical expansion: add new rows at bottom
-    private void expandVertically(int extraRows) {
-        // Generate the new vertical chunk
-        Cell[][] newSection = MazeGenerator.generateMaze(extraRows, cols);
-        Cell[][] newMaze = new Cell[rows + extraRows][cols];
-
-        // Copy old maze
-        for (int r = 0; r < rows; r++)
-            for (int c = 0; c < cols; c++)
-                newMaze[r][c] = maze[r][c];
-
-        // Copy new section below
-        for (int r = 0; r < extraRows; r++)
-            for (int c = 0; c < cols; c++)
-                newMaze[rows + r][c] = newSection[r][c];
-
-        // more openings
-        int openings = 6 + rnd.nextInt(5); // 6–10 openings
-        for (int i = 0; i < openings; i++) {
-            int c = i * (cols - 1) / (openings - 1); // spread evenly horizontally
-            newMaze[rows - 1][c].bottomWall = false; // connect old bottom to new top
-        }
-
-        // Install new maze
-        maze = newMaze;
-        rows += extraRows;
-
-        setPreferredSize(new Dimension(cols * cellSize, rows * cellSize));
-        revalidate();
-        repaint();
-    }
-
-    private void spawnEnemyInNewSectionSafelyVertical(int extraRows) {
-        int attempts = 0;
-        int er, ec;
-        int minDist = Math.max(3, Math.max(rows, cols) / 4);
-
-        do {
-            er = rows - extraRows + rnd.nextInt(extraRows);
-            ec = rnd.nextInt(cols);
-            attempts++;
-
-            if (attempts > 500) break;
-        } while (Math.abs(er - playerRow) + Math.abs(ec - playerCol) < minDist);
-
-        enemies.add(new Enemy(er, ec));
-    }
-
-    private void pauseGame() {
-        isPaused = true;
-
-        if (enemyTimer != null) enemyTimer.stop();
-        // No movement while paused, player can still move for demonstration purposes
-        repaint();
-    }
-
-    private void resumeGame() {
-        isPaused = false;
-
-        if (enemyTimer != null && !victoryMode && !gameOver) enemyTimer.start();
-        repaint();
-    }
-
-
-
-    // input
-    @Override
-    public void keyPressed(KeyEvent e) {
-
         // Pause toggle
-        if (e.getKeyCode() == KeyEvent.VK_P) {
-            if (isPaused) resumeGame();
-            else pauseGame();
+        if (code == KeyEvent.VK_P) {
+            engine.setPaused(!state.paused);
+            changed = true;
             return;
         }
 
-        if (victoryMode || gameOver) return;
-
-        int nr = playerRow, nc = playerCol;
-        if (e.getKeyCode() == KeyEvent.VK_W) nr--;
-        if (e.getKeyCode() == KeyEvent.VK_S) nr++;
-        if (e.getKeyCode() == KeyEvent.VK_A) nc--;
-        if (e.getKeyCode() == KeyEvent.VK_D) nc++;
-
-        if (nr >= 0 && nr < rows && nc >= 0 && nc < cols && !isBlocked(playerRow, playerCol, nr, nc)) {
-            playerRow = nr;
-            playerCol = nc;
-
-            scrollRectToVisible(new Rectangle(playerCol * cellSize, playerRow * cellSize, cellSize, cellSize));
-        }
-
-
-        // victory check
-        if (playerRow == rows - 1 && playerCol == cols - 1) {
-            enterVictoryMode();
+        int dir = code == KeyEvent.VK_W ? GameEngine.UP
+                : code == KeyEvent.VK_S ? GameEngine.DOWN
+                : code == KeyEvent.VK_A ? GameEngine.LEFT
+                : code == KeyEvent.VK_D ? GameEngine.RIGHT : GameEngine.STAY;
+        if (engine.movePlayer(dir)) {
+            changed = true;
+            if (state.victoryMode) enterVictoryMode();
         }
-
-        repaint(); // regenerates map after every move
     }
 
     private void enterVictoryMode() {
-        victoryMode = true;
-        if (enemyTimer != null) enemyTimer.stop();
-
-        // Calculate time taken
-        long endTime = System.currentTimeMillis();
-        lastTimeTaken = (endTime - startTime) / 1000.0; // seconds
+        // Calculate time taken, in game time so pausing the JVM or a slow tick doesn't count
+        lastTimeTaken = state.ticks * TICK_MILLIS / 1000.0; // seconds
 
 
         // Load previous best if not already loaded
@@ -581,59 +330,142 @@ class GamePanel extends JPanel implements KeyListener {
         } else {
             newRecord = false;
         }
-
-        replayButton.setBounds(getWidth() / 2 - 60, getHeight() / 2 + 80, 120, 40);
-        replayButton.setVisible(true);
     }
 
 
     @Override public void keyReleased(KeyEvent e) {}
     @Override public void keyTyped(KeyEvent e) {}
 
-    // wall check
-    private boolean isBlocked(int r1, int c1, int r2, int c2) {
-        if (r2 == r1 - 1 && c2 == c1) return maze[r2][c2].bottomWall;
-        if (r2 == r1 + 1 && c2 == c1) return maze[r1][c1].bottomWall;
-        if (c2 == c1 - 1 && r2 == r1) return maze[r2][c2].rightWall;
-        if (c2 == c1 + 1 && r2 == r1) return maze[r1][c1].rightWall;
-        return true;
-    }
-
-    // drawing 2D maze/hud/animations
+    // drawing 2D maze/hud/animations, event thread only, everything comes from the view snapshot
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        Graphics2D g2 = (Graphics2D) g.create();
-
-        // Draw maze, enemies, player
-        drawMaze(g2);
-        drawExit(g2);
-        drawEnemies(g2);
+        // drawn straight onto g instead of a g.create() copy, the few settings changed are put back at the end
+        Graphics2D g2 = (Graphics2D) g;
+        Stroke oldStroke = g2.getStroke();
+        Font oldFont = g2.getFont();
+        Composite oldComposite = g2.getComposite();
+
+        // Draw maze (cached tiles, visible part only), enemies, player
+        clipBounds.setBounds(0, 0, getWidth(), getHeight());
+        g2.getClipBounds(clipBounds);
+        drawMazeTiles(g2, clipBounds);
+        drawEnemies(g2, clipBounds);
         drawPlayer(g2);
 
         // Victory overlay overrides everything
-        if (victoryMode) {
+        if (view.victoryMode || view.gameOver) {
+            layoutOverlayText(g2.getFontRenderContext());
+        }
+        if (view.victoryMode) {
             drawVictoryOverlay(g2);
-        } else if (gameOver) {
+        } else if (view.gameOver) {
             drawGameOverOverlay(g2);
         }
+        if (showStats) {
+            drawStats(g2);
+        }
+
+        g2.setStroke(oldStroke);
+        g2.setFont(oldFont);
+        g2.setComposite(oldComposite);
+    }
+
+    // the walls only change on restart/expansion, so they're drawn into cached tile images and reused for every repaint
+    private void invalidateTiles() {
+        tileRows = (view.rows + TILE_CELLS - 1) / TILE_CELLS;
+        tileCols = (view.cols + TILE_CELLS - 1) / TILE_CELLS;
+        if (tiles.length < tileRows * tileCols) tiles = new BufferedImage[tileRows * tileCols];
+        for (int i = 0; i < cachedTileCount; i++) tiles[cachedTiles[i]] = null;
+        cachedTileCount = 0;
+    }
+
+    private void drawMazeTiles(Graphics2D g2, Rectangle clip) {
+        if (tileCols == 0) invalidateTiles();
+        paintCount++;
+        int tilePx = TILE_CELLS * cellSize;
+        int tr0 = Math.max(0, clip.y / tilePx), tr1 = Math.min(tileRows - 1, (clip.y + clip.height - 1) / tilePx);
+        int tc0 = Math.max(0, clip.x / tilePx), tc1 = Math.min(tileCols - 1, (clip.x + clip.width - 1) / tilePx);
+
+        for (int tr = tr0; tr <= tr1; tr++) {
+            for (int tc = tc0; tc <= tc1; tc++) {
+                g2.drawImage(tile(tr * tileCols + tc), tc * tilePx, tr * tilePx, null);
+            }
+        }
+    }
+
+    // cached tile image, rendered on first use; evicts the least recently drawn tile once the cache is full
+    private BufferedImage tile(int index) {
+        BufferedImage img = tiles[index];
+        int slot;
+        if (img != null) {
+            for (slot = 0; cachedTiles[slot] != index; slot++) { }
+            tileLastUsed[slot] = paintCount;
+            return img;
+        }
+
+        BufferedImage reuse = null;
+        if (cachedTileCount < MAX_CACHED_TILES) {
+            slot = cachedTileCount++;
+        } else {
+            slot = 0;
+            for (int i = 1; i < MAX_CACHED_TILES; i++) {
+                if (tileLastUsed[i] < tileLastUsed[slot]) slot = i;
+            }
+            reuse = tiles[cachedTiles[slot]];
+            tiles[cachedTiles[slot]] = null;
+        }
+        img = renderTile(index / tileCols, index % tileCols, reuse);
+        tiles[index] = img;
+        cachedTiles[slot] = index;
+        tileLastUsed[slot] = paintCount;
+        return img;
+    }
 
+    private BufferedImage renderTile(int tr, int tc, BufferedImage reuse) {
+        int rows = view.rows, cols = view.cols;
+        int r0 = tr * TILE_CELLS, c0 = tc * TILE_CELLS;
+        int r1 = Math.min(rows, r0 + TILE_CELLS), c1 = Math.min(cols, c0 + TILE_CELLS);
+        // + half of the 4px wall stroke on the far edges of the maze
+        int w = (c1 - c0) * cellSize + (c1 == cols ? 2 : 0);
+        int h = (r1 - r0) * cellSize + (r1 == rows ? 2 : 0);
+
+        BufferedImage img = reuse;
+        if (img == null || img.getWidth() != w || img.getHeight() != h) {
+            GraphicsConfiguration gc = getGraphicsConfiguration();
+            img = gc != null ? gc.createCompatibleImage(w, h) : new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        }
+        Graphics2D g2 = img.createGraphics();
+        g2.setColor(getBackground());
+        g2.fillRect(0, 0, w, h);
+        g2.translate(-c0 * cellSize, -r0 * cellSize);
+        // walls of the cells just around the tile stick into it by half a stroke, so they're drawn too
+        drawMaze(g2, Math.max(0, r0 - 1), Math.min(rows, r1 + 1), Math.max(0, c0 - 1), Math.min(cols, c1 + 1));
+        drawExit(g2);
         g2.dispose();
+        return img;
     }
 
-    private void drawMaze(Graphics2D g2) {
+    // only the cell's square is repainted, everything else on screen stays as it is
+    private void repaintCell(int r, int c) {
+        repaint(c * cellSize, r * cellSize, cellSize, cellSize);
+    }
+
+    // walls of the cells in rows [r0, r1) and columns [c0, c1)
+    private void drawMaze(Graphics2D g2, int r0, int r1, int c0, int c1) {
+        MazeView maze = view.maze;
         g2.setColor(Color.BLACK);
-        g2.setStroke(new BasicStroke(4f));
+        g2.setStroke(WALL_STROKE);
 
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
+        for (int r = r0; r < r1; r++) {
+            for (int c = c0; c < c1; c++) {
                 int x = c * cellSize;
                 int y = r * cellSize;
 
                 if (r == 0) g2.drawLine(x, y, x + cellSize, y);
                 if (c == 0) g2.drawLine(x, y, x, y + cellSize);
-                if (maze[r][c].rightWall) g2.drawLine(x + cellSize, y, x + cellSize, y + cellSize);
-                if (maze[r][c].bottomWall) g2.drawLine(x, y + cellSize, x + cellSize, y + cellSize);
+                if (maze.hasRightWall(r, c)) g2.drawLine(x + cellSize, y, x + cellSize, y + cellSize);
+                if (maze.hasBottomWall(r, c)) g2.drawLine(x, y + cellSize, x + cellSize, y + cellSize);
             }
         }
     }
@@ -641,102 +473,115 @@ class GamePanel extends JPanel implements KeyListener {
 
     private void drawExit(Graphics2D g2) {
         g2.setColor(Color.GREEN);
-        int ex = (cols - 1) * cellSize + (cellSize / 6);
-        int ey = (rows - 1) * cellSize + (cellSize / 6);
+        int ex = (view.cols - 1) * cellSize + (cellSize / 6);
+        int ey = (view.rows - 1) * cellSize + (cellSize / 6);
         int esz = cellSize - (cellSize / 3);
         g2.fillRect(ex, ey, esz, esz);
     }
 
-    private void drawEnemies(Graphics2D g2) {
+    // one oval per occupied cell, enemies piled onto the same cells cost no more than the cells they cover
+    private void drawEnemies(Graphics2D g2, Rectangle clip) {
         g2.setColor(Color.BLUE);
-        for (Enemy en : enemies) {
-            int x = en.col * cellSize + cellSize / 8;
-            int y = en.row * cellSize + cellSize / 8;
+        for (int i = 0; i < view.enemyRows.length; i++) {
+            int x = view.enemyCols[i] * cellSize + cellSize / 8;
+            int y = view.enemyRows[i] * cellSize + cellSize / 8;
+            if (x > clip.x + clip.width || y > clip.y + clip.height || x + cellSize < clip.x || y + cellSize < clip.y) continue;
             g2.fillOval(x, y, cellSize - cellSize / 4, cellSize - cellSize / 4);
         }
     }
 
     private void drawPlayer(Graphics2D g2) {
         g2.setColor(Color.RED);
-        int x = playerCol * cellSize + cellSize / 8;
-        int y = playerRow * cellSize + cellSize / 8;
+        int x = view.playerCol * cellSize + cellSize / 8;
+        int y = view.playerRow * cellSize + cellSize / 8;
         g2.fillOval(x, y, cellSize - cellSize / 4, cellSize - cellSize / 4);
     }
 
     // Victory Overlay
     private void drawVictoryOverlay(Graphics2D g2) {
         // Darken world
-        g2.setColor(new Color(0, 0, 0, 180));
+        g2.setColor(VICTORY_SHADE);
         g2.fillRect(0, 0, getWidth(), getHeight());
 
-        int sx = (cols - 1) * cellSize + cellSize / 2;
-        int sy = (rows - 1) * cellSize + cellSize / 2;
+        int sx = (view.cols - 1) * cellSize + cellSize / 2;
+        int sy = (view.rows - 1) * cellSize + cellSize / 2;
 
         g2.setComposite(AlphaComposite.Clear);
         g2.fillOval(sx - 80, sy - 80, 160, 160);
         g2.setComposite(AlphaComposite.SrcOver);
 
-        // Draw pulsating text - ISSUE (Victory doesn't pulse, but shows victory)
-        g2.setColor(Color.YELLOW);
-        g2.setFont(new Font("Arial", Font.BOLD, (int) (60 * victoryScale)));
-
-        String msg = "VICTORY!";
-
-        if (newRecord) {
-            g2.setFont(new Font("Arial", Font.BOLD, 30));
-            String msg2 = "New Record!";
-            FontMetrics fm = g2.getFontMetrics();
-            int tx = (getWidth() - fm.stringWidth(msg2)) / 2;
-            int ty = getHeight() / 3 + 70;
+        if (view.newRecord) {
             g2.setColor(Color.CYAN);
-            g2.drawString(msg2, tx, ty);
+            drawCentered(g2, recordText, recordWidth, getHeight() / 3 + 70);
         }
 
         // Show times
-        g2.setFont(new Font("Arial", Font.PLAIN, 24));
         g2.setColor(Color.WHITE);
-
-        String timeMsg = String.format("Time: %.2f s", lastTimeTaken);
-        String bestMsg = bestTime > 0 ? String.format("Best: %.2f s", bestTime) : "";
-
-        FontMetrics fm = g2.getFontMetrics();
-        int tx1 = (getWidth() - fm.stringWidth(timeMsg)) / 2;
-        g2.drawString(timeMsg, tx1, getHeight() / 3 + 120);
-
-        if (!bestMsg.isEmpty()) {
-            int tx2 = (getWidth() - fm.stringWidth(bestMsg)) / 2;
-            g2.drawString(bestMsg, tx2, getHeight() / 3 + 150);
+        drawCentered(g2, timeText, timeWidth, getHeight() / 3 + 120);
+        if (bestText != null) {
+            drawCentered(g2, bestText, bestWidth, getHeight() / 3 + 150);
         }
 
-
-        FontMetrics fm2 = g2.getFontMetrics();
-        int tx = (getWidth() - fm2.stringWidth(msg)) / 2;
-        int ty = getHeight() / 3;
-
-        g2.drawString(msg, tx, ty);
+        // Draw pulsating text, each size has its own pre-built glyphs
+        int size = Math.max(PULSE_MIN_SIZE, Math.min(PULSE_MAX_SIZE, (int) (60 * view.victoryScale)));
+        g2.setColor(Color.YELLOW);
+        drawCentered(g2, pulseText[size - PULSE_MIN_SIZE], pulseWidth[size - PULSE_MIN_SIZE], getHeight() / 3);
     }
 
     // Game Over Overlay
     private void drawGameOverOverlay(Graphics2D g2) {
-        g2.setColor(new Color(0, 0, 0, 200));
+        g2.setColor(GAME_OVER_SHADE);
         g2.fillRect(0, 0, getWidth(), getHeight());
 
         // Game Over text
         g2.setColor(Color.RED);
-        g2.setFont(new Font("Arial", Font.BOLD, 64));
-        String msg = "GAME OVER";
-        FontMetrics fm = g2.getFontMetrics();
-        int tx = (getWidth() - fm.stringWidth(msg)) / 2;
         int ty = getHeight() / 2;
-        g2.drawString(msg, tx, ty);
+        drawCentered(g2, gameOverText, gameOverWidth, ty);
 
         // show a small text when game over
-        g2.setFont(new Font("Arial", Font.PLAIN, 20));
-        String reason = "Too many expansions — you lose";
-        int rx = (getWidth() - g2.getFontMetrics().stringWidth(reason)) / 2;
-        g2.drawString(reason, rx, ty + 36);
+        drawCentered(g2, reasonText, reasonWidth, ty + 36);
 
         replayButton.setBounds(getWidth() / 2 - 60, getHeight() / 2 + 80, 120, 40);
         replayButton.setVisible(true);
     }
+
+    // loop timing, top left of the visible part of the panel
+    private void drawStats(Graphics2D g2) {
+        computeVisibleRect(visibleBounds);
+        g2.setColor(Color.DARK_GRAY);
+        g2.setFont(STATS_FONT);
+        g2.drawString(String.format("tick %.2f ms avg %.2f ms max  lag %.2f ms  catch-up %d  dropped %d",
+                view.avgTickNanos / 1e6, view.maxTickNanos / 1e6, view.lagNanos / 1e6,
+                view.catchUpTicks, view.droppedTicks), visibleBounds.x + 6, visibleBounds.y + 16);
+    }
+
+    private void drawCentered(Graphics2D g2, GlyphVector text, float width, int y) {
+        g2.drawGlyphVector(text, (getWidth() - width) / 2, y);
+    }
+
+    // lays out every overlay string as glyphs for the current font render context, only redone when the
+    // context changes or the victory times change, never on a normal frame
+    private void layoutOverlayText(FontRenderContext frc) {
+        if (frc.equals(textFrc) && timeText != null) return;
+        textFrc = frc;
+
+        for (int size = PULSE_MIN_SIZE; size <= PULSE_MAX_SIZE; size++) {
+            pulseText[size - PULSE_MIN_SIZE] = PULSE_FONTS[size - PULSE_MIN_SIZE].createGlyphVector(frc, "VICTORY!");
+            pulseWidth[size - PULSE_MIN_SIZE] = width(pulseText[size - PULSE_MIN_SIZE]);
+        }
+        recordText = RECORD_FONT.createGlyphVector(frc, "New Record!");
+        recordWidth = width(recordText);
+        timeText = TIME_FONT.createGlyphVector(frc, String.format("Time: %.2f s", view.lastTimeTaken));
+        timeWidth = width(timeText);
+        bestText = view.bestTime > 0 ? TIME_FONT.createGlyphVector(frc, String.format("Best: %.2f s", view.bestTime)) : null;
+        bestWidth = bestText != null ? width(bestText) : 0;
+        gameOverText = GAME_OVER_FONT.createGlyphVector(frc, "GAME OVER");
+        gameOverWidth = width(gameOverText);
+        reasonText = REASON_FONT.createGlyphVector(frc, "Too many expansions — you lose");
+        reasonWidth = width(reasonText);
+    }
+
+    private static float width(GlyphVector text) {
+        return (float) text.getLogicalBounds().getWidth();
+    }
 }
\ No newline at end of file
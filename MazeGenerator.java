@@ -0,0 +1,76 @@
+import java.util.SplittableRandom;
+
+// Maze generator: randomized DFS with controlled loops
+class MazeGenerator {
+    // returns rows x cols maze
+    public static MazeGrid generateMaze(int rows, int cols){
+        return generateMaze(rows, cols, MazeGeneratorA.randomSeed(), false);
+    }
+
+    // same seed + size = same maze, loops and corridors included
+    public static MazeGrid generateMaze(int rows, int cols, long seed){
+        return generateMaze(rows, cols, seed, false);
+    }
+
+    // parallel = carve the perfect maze tile by tile on all cores, meant for very large offline levels
+    public static MazeGrid generateMaze(int rows, int cols, long seed, boolean parallel){
+        return generateMaze(rows, cols, seed, parallel, Tuning.DEFAULT);
+    }
+
+    // tuning sets how many loops and corridor openings are added on top of the perfect maze
+    static MazeGrid generateMaze(int rows, int cols, long seed, boolean parallel, Tuning tuning){
+        // 1. generate perfect maze (Union-Find, shared with MazeGeneratorA)
+
+        // the serial carve and the passes below take turns on one stream, the parallel carve has its own streams
+        SplittableRandom rand;
+        MazeGrid maze;
+        if(parallel) {
+            maze = MazeGeneratorA.generateMazeParallel(rows, cols, seed);
+            rand = new SplittableRandom(MazeGeneratorA.mixSeed(seed, MazeGeneratorA.EXTRAS_STREAM));
+        } else {
+            rand = new SplittableRandom(seed);
+            maze = new PackedMazeGrid(rows, cols);
+            MazeGeneratorA.carvePerfectMaze(maze, rand);
+        }
+
+        // 2. loop creation
+
+        int softLoops = tuning.softLoops(rows, cols);  // sparse & safe
+        for(int i = 0; i < softLoops; i++){
+            int r = rand.nextInt(rows - 1);
+            int c = rand.nextInt(cols - 1);
+
+            // small chance to carve, keeping structure intact, not too many openings
+            if(rand.nextInt(100) < tuning.loopChance) {
+                maze.setRightWall(r, c, false);
+            }
+            if(rand.nextInt(100) < tuning.loopChance) {
+                maze.setBottomWall(r, c, false);
+            }
+        }
+
+        // Main corridors
+
+        int midR = rows / 2;
+        int midC = cols / 2;
+
+        // horizontal central corridor
+        for(int c = 0; c < cols - 1; c++){
+            if(rand.nextInt(100) < tuning.corridorChance)
+                maze.setRightWall(midR, c, false);
+        }
+
+        // vertical central corridor
+        for(int r = 0; r < rows - 1; r++){
+            if(rand.nextInt(100) < tuning.corridorChance)
+                maze.setBottomWall(r, midC, false);
+        }
+
+        // Remove accidental 2×2 solid blocks (four walls meeting in one point), neighbouring ones share an opening.
+        // every pass above only opens walls, so the perfect maze's guarantee holds: every cell, the exit
+        // included, is reachable from the start. MazeValidator checks that over whole batches of mazes
+        MazeValidator.openClosedBlocks(maze, rand);
+
+        return maze;
+    }
+}
@@ -1,129 +1,331 @@
-
-import java.util.Random;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.Scanner;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class MazeGeneratorA {
 
-    public static class UnionFind {
-        public int[] parent;
+    public static MazeGrid generateMaze(int rows, int cols) {
+        return generateMaze(rows, cols, randomSeed());
+    }
 
-        // union-find
-        public UnionFind(int size) {
-            parent = new int[size];
-            for (int i = 0; i < size; i++) {
-                parent[i] = i;
-            }
+    // the same seed and size always give the exact same maze
+    public static MazeGrid generateMaze(int rows, int cols, long seed) {
+        MazeGrid grid = new PackedMazeGrid(rows, cols); // right and bottom walls start standing
+        carvePerfectMaze(grid, new SplittableRandom(seed));
+        return grid;
+    }
+
+    // fresh seed for callers that don't care about replaying the maze
+    public static long randomSeed() {
+        return new SplittableRandom().nextLong();
+    }
+
+    // turns (seed, salt) into a well mixed seed, so tiles/sections built from one level seed don't get overlapping random streams
+    public static long mixSeed(long seed, long salt) {
+        long z = seed + salt * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // randomized kruskal over every inner wall of the grid, leaves a perfect maze (exactly one path between any two cells)
+    public static void carvePerfectMaze(MazeGrid grid, SplittableRandom random) {
+        carveRegion(grid, 0, 0, grid.rows(), grid.cols(), random, false);
+    }
+
+    // same perfect maze guarantee, but built from tiles carved in parallel on the fork-join pool
+    // each tile becomes its own spanning tree, then one kruskal pass over the seam walls joins the tiles together
+    // every tile draws from its own seed derived from (seed, tile index), so the output doesn't depend on thread scheduling
+    public static MazeGrid generateMazeParallel(int rows, int cols, long seed) {
+        return generateMazeParallel(rows, cols, seed, PARALLEL_TILE_SIZE);
+    }
+
+    public static MazeGrid generateMazeParallel(int rows, int cols, long seed, int tileSize) {
+        PackedMazeGrid grid = new PackedMazeGrid(rows, cols);
+        int tileRows = (rows + tileSize - 1) / tileSize;
+        int tileCols = (cols + tileSize - 1) / tileSize;
+
+        ForkJoinPool.commonPool().invoke(new TileCarver(grid, seed, tileSize, tileCols, 0, tileRows * tileCols));
+        joinTiles(grid, tileSize, tileRows, tileCols, new SplittableRandom(mixSeed(seed, JOIN_STREAM)));
+        return grid;
+    }
+
+    static final int PARALLEL_TILE_SIZE = 256; // 64k cells per tile keeps a tile's union-find in cache
+    // salts for mixSeed: tile i draws from mixSeed(seed, i), the stages after the tiles from negative salts, so no
+    // two stages ever share a stream (new SplittableRandom(seed) would, its k-th long is mixSeed(seed, k))
+    static final long JOIN_STREAM = -1;
+    static final long EXTRAS_STREAM = -2; // MazeGenerator's loops and corridors on top of a parallel maze
+
+    // splits the tile range in half until a single tile is left, then carves it
+    private static class TileCarver extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final PackedMazeGrid grid;
+        private final long seed;
+        private final int tileSize, tileCols, from, to;
+
+        TileCarver(PackedMazeGrid grid, long seed, int tileSize, int tileCols, int from, int to) {
+            this.grid = grid;
+            this.seed = seed;
+            this.tileSize = tileSize;
+            this.tileCols = tileCols;
+            this.from = from;
+            this.to = to;
         }
 
-        // path compression
-        public int find(int p) {
-            if (parent[p] != p) {
-                parent[p] = find(parent[p]);
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TileCarver(grid, seed, tileSize, tileCols, from, mid),
+                          new TileCarver(grid, seed, tileSize, tileCols, mid, to));
+                return;
             }
-            return parent[p];
+            int r0 = (from / tileCols) * tileSize;
+            int c0 = (from % tileCols) * tileSize;
+            int h = Math.min(tileSize, grid.rows() - r0);
+            int w = Math.min(tileSize, grid.cols() - c0);
+            // tiles share bitset words along their edges, so the walls are cleared atomically
+            carveRegion(grid, r0, c0, h, w, new SplittableRandom(mixSeed(seed, from)), true);
+        }
+    }
+
+    // kruskal over the walls between tiles only, with one union-find slot per tile
+    // every tile is already connected inside, so this opens exactly tiles - 1 seam walls
+    private static void joinTiles(PackedMazeGrid grid, int tileSize, int tileRows, int tileCols, SplittableRandom random) {
+        int rows = grid.rows();
+        int cols = grid.cols();
+        UnionFind tiles = new UnionFind(tileRows * tileCols);
+
+        // seam walls use the same (cell << 1) | orientation packing, cell is the global row-major index
+        long seamCount = (long) rows * (tileCols - 1) + (long) cols * (tileRows - 1);
+        long[] seams = new long[(int) seamCount];
+        int n = 0;
+        for (int tc = 1; tc < tileCols; tc++) {
+            int c = tc * tileSize - 1;
+            for (int r = 0; r < rows; r++) seams[n++] = (((long) r * cols + c) << 1) | 1;
+        }
+        for (int tr = 1; tr < tileRows; tr++) {
+            int r = tr * tileSize - 1;
+            for (int c = 0; c < cols; c++) seams[n++] = ((long) r * cols + c) << 1;
+        }
+
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long temp = seams[i];
+            seams[i] = seams[j];
+            seams[j] = temp;
         }
 
-        // unite two elements if not already connected
-        public boolean union(int p, int q) {
-            int rootP = find(p);
-            int rootQ = find(q);
+        for (int k = 0; k < n; k++) {
+            long cell = seams[k] >>> 1;
+            boolean isRightWall = (seams[k] & 1) == 1;
+            int row = (int) (cell / cols);
+            int col = (int) (cell % cols);
+            int tileA = (row / tileSize) * tileCols + col / tileSize;
+            int tileB = isRightWall ? tileA + 1 : tileA + tileCols;
 
-            if (rootP == rootQ) {
-                return false;
+            if (tiles.union(tileA, tileB)) {
+                if (isRightWall) grid.setRightWall(row, col, false);
+                else             grid.setBottomWall(row, col, false);
             }
-            parent[rootQ] = rootP;
-            return true;
         }
     }
-    public static boolean[][][] generateMaze(int rows, int cols) {
-        UnionFind uf = new UnionFind(rows * cols);
-        boolean[][] rightWalls = new boolean[rows][cols]; // right walls grid
-        boolean[][] bottomWalls = new boolean[rows][cols]; // bottom walls grid
-        int[][] walls = new int[(rows * cols) * 2][3]; // store walls
 
-        int wallCount = 0;
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                rightWalls[i][j] = true;  // right and bottom walls are generated
-                bottomWalls[i][j] = true;
+    // kruskal restricted to the h x w block whose top-left cell is (r0, c0)
+    // walls on the block's outer edge are left alone
+    private static void carveRegion(MazeGrid grid, int r0, int c0, int h, int w, SplittableRandom random, boolean shared) {
+        UnionFind uf = new UnionFind(h * w);
 
+        // each wall is packed into one int: (cell << 1) | 1 for its right wall, (cell << 1) for its bottom wall
+        // cell is local to the block, and the array is sized to the real number of inner walls instead of 2 * rows * cols
+        int[] walls = new int[h * (w - 1) + (h - 1) * w];
+
+        int wallCount = 0;
+        for (int i = 0; i < h; i++) {
+            for (int j = 0; j < w; j++) {
+                int cell = (i * w) + j;
                 // adds right wall if not last column
-                if (j < cols - 1) {
-                    walls[wallCount++] = new int[]{(i * cols) + j, (i * cols) + j + 1, 1};
+                if (j < w - 1) {
+                    walls[wallCount++] = (cell << 1) | 1;
                 }
                 // adds bottom wall if not last row
-                if (i < rows - 1) {
-                    walls[wallCount++] = new int[]{(i * cols) + j, (i + 1) * cols + j, 0};
+                if (i < h - 1) {
+                    walls[wallCount++] = cell << 1;
                 }
             }
         }
 
         // I used fisher-yates algorithm to shuffle walls
-        // potential problem: if random number gen is not truly random, the shuffle may be biased (some arrangements will be more likely than others)
-        Random random = new Random();
+        // SplittableRandom is fast, uncontended and seedable, so a given seed always shuffles the same way
         for (int i = wallCount - 1; i > 0; i--) {
             int j = random.nextInt(i + 1); // Pick a random index from 0 to i
-            int[] temp = walls[i];
+            int temp = walls[i];
             walls[i] = walls[j]; // swaps walls [i] and [j]
             walls[j] = temp;
         }
 
         for (int k = 0; k < wallCount; k++) {
-            int cell1 = walls[k][0];
-            int cell2 = walls[k][1];
-            boolean isRightWall = walls[k][2] == 1;
+            int cell1 = walls[k] >>> 1;
+            boolean isRightWall = (walls[k] & 1) == 1;
+            int cell2 = isRightWall ? cell1 + 1 : cell1 + w;
 
             // connect cells if they are not already connected
             boolean connected = uf.union(cell1, cell2);
 
             if (connected) { // if cells were successfully connected
-                int row = cell1 / cols;
-                int col = cell1 % cols;
+                int row = r0 + cell1 / w;
+                int col = c0 + cell1 % w;
 
                 // determine which wall to knock down
-                if (isRightWall) {
-                    rightWalls[row][col] = false; // knock down right wall
+                if (shared) {
+                    ((PackedMazeGrid) grid).openWallAtomic(row, col, isRightWall);
+                } else if (isRightWall) {
+                    grid.setRightWall(row, col, false); // knock down right wall
                 } else {
-                    bottomWalls[row][col] = false; // knock down bottom wall
+                    grid.setBottomWall(row, col, false); // knock down bottom wall
                 }
             }
         }
+    }
 
-        return new boolean[][][]{rightWalls, bottomWalls};
+    public static void printMaze(MazeView grid) {
+        printMaze(grid, System.out);
     }
 
-    public static void printMaze(boolean[][] rightWalls, boolean[][] bottomWalls, int rows, int cols) {
-        StringBuilder maze = new StringBuilder(); // uses strings to construct maze
+    // streams the maze row by row, nothing bigger than one row's worth of output is ever built
+    public static void printMaze(MazeView grid, OutputStream out) {
+        int rows = grid.rows();
+        int cols = grid.cols();
+        AsciiWriter writer = new AsciiWriter(cols, out);
+        for (int i = 0; i < rows; i++) {
+            writer.beginLine('|');
+            for (int j = 0; j < cols; j++) writer.rightWall(grid.hasRightWall(i, j));
+            writer.endLine();
+            writer.beginLine('+');
+            for (int j = 0; j < cols; j++) {
+                boolean exit = i == rows - 1 && j == cols - 1; // exit in the lower-right
+                writer.bottomWall(grid.hasBottomWall(i, j) && !exit);
+            }
+            writer.endLine();
+        }
+        writer.beginLine('\n'); // blank line after the maze, like the console version always printed
+        writer.finish();
+    }
 
-        // creates the top with top-left entrance
-        maze.append("+"); // " + " is used for corners and connecting walls (before they are knocked down)
-        maze.append("   +"); // entrance space
-        maze.append("---+".repeat(cols - 1)).append("\n"); // adds walls to the right of the entrance
+    // prints rows as the generator produces them, only one row of the maze is ever held in memory
+    public static void printMaze(EllerMazeGenerator generator, OutputStream out) {
+        int cols = generator.cols();
+        boolean[] rightWalls = new boolean[cols];
+        boolean[] bottomWalls = new boolean[cols];
+        AsciiWriter writer = new AsciiWriter(cols, out);
 
-        for (int i = 0; i < rows; i++) {
-            StringBuilder topRow = new StringBuilder("|"); // walls are indicated by "|"
-            StringBuilder bottomRow = new StringBuilder("+"); // " + " is used for corners and connecting walls (before they are knocked down)
+        while (generator.hasNextRow()) {
+            generator.nextRow(rightWalls, bottomWalls);
+            boolean lastRow = !generator.hasNextRow();
 
+            writer.beginLine('|');
+            for (int j = 0; j < cols; j++) writer.rightWall(rightWalls[j]);
+            writer.endLine();
+            writer.beginLine('+');
             for (int j = 0; j < cols; j++) {
-                topRow.append(rightWalls[i][j] ? "   |" : "    "); // this is what the right wall will look like when printed
-                bottomRow.append(bottomWalls[i][j] ? "---+" : "   +"); // this is what the bottom wall will look like when printed
+                boolean exit = lastRow && j == cols - 1; // exit in the lower-right, no need to patch it afterwards
+                writer.bottomWall(bottomWalls[j] && !exit);
             }
+            writer.endLine();
+        }
+        writer.beginLine('\n'); // the same blank line the grid version ends with
+        writer.finish();
+    }
+
+    // the ASCII drawing both printMaze versions share: "+   +---+..." on top (the entrance), then per row a line of
+    // "|" right walls and a line of "+" bottom walls. lines are written as bytes into one reusable buffer that goes
+    // to the stream whenever it can't hold another full line, so there are no per-row strings and no charset encoding
+    private static final class AsciiWriter {
+        private static final int BUFFER_BYTES = 1 << 16;
 
-            maze.append(topRow).append("\n").append(bottomRow).append("\n");
+        private final OutputStream out;
+        private final byte[] buffer;
+        private final int lineBytes;
+        private int used = 0;
+
+        AsciiWriter(int cols, OutputStream out) {
+            this.out = out;
+            lineBytes = 4 * cols + 2; // first character, 4 per cell, newline
+            buffer = new byte[Math.max(BUFFER_BYTES, lineBytes)];
+            beginLine('+');
+            put(' ', ' ', ' ', '+'); // entrance space
+            for (int j = 1; j < cols; j++) bottomWall(true);
+            endLine();
         }
 
-        maze.replace(maze.lastIndexOf("---"), maze.lastIndexOf("---") + 3, "   "); // creates an exit in the lower-right of the maze
+        // makes room for a whole line, so nothing up to its endLine has to check for space
+        void beginLine(char first) {
+            if (buffer.length - used < lineBytes) drain();
+            buffer[used++] = (byte) first;
+        }
 
-        System.out.println(maze);
+        void endLine() {
+            buffer[used++] = '\n';
+        }
+
+        void rightWall(boolean wall) {
+            put(' ', ' ', ' ', wall ? '|' : ' ');
+        }
+
+        void bottomWall(boolean wall) {
+            if (wall) put('-', '-', '-', '+');
+            else put(' ', ' ', ' ', '+');
+        }
+
+        void finish() {
+            drain();
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void put(char a, char b, char c, char d) {
+            buffer[used] = (byte) a;
+            buffer[used + 1] = (byte) b;
+            buffer[used + 2] = (byte) c;
+            buffer[used + 3] = (byte) d;
+            used += 4;
+        }
+
+        private void drain() {
+            try {
+                out.write(buffer, 0, used);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            used = 0;
+        }
     }
 
     public static void main(String[] args) {
+        // "java MazeGeneratorA <rows> <cols> [seed]" streams the maze straight to stdout, handy for huge mazes redirected to a file
+        if (args.length >= 2) {
+            long rows = Long.parseLong(args[0]);
+            int cols = Integer.parseInt(args[1]);
+            long seed = args.length >= 3 ? Long.parseLong(args[2]) : randomSeed();
+            printMaze(new EllerMazeGenerator(rows, cols, seed), new FileOutputStream(FileDescriptor.out)); // buffers by itself
+            return;
+        }
+
         Scanner scanner = new Scanner(System.in); // inputs for the N x M grid of cells
         System.out.print("Enter number of rows: \n");
         int rows = scanner.nextInt();
         System.out.print("Enter number of columns: \n");
         int cols = scanner.nextInt();
-        boolean[][][] walls = generateMaze(rows, cols);
-        printMaze(walls[0], walls[1], rows, cols);
+        printMaze(generateMaze(rows, cols));
     }
 }
\ No newline at end of file
@@ -0,0 +1,8 @@
+// Wall storage shared by the console generator and the game, a MazeView whose walls can be changed.
+// generators carve into one, the game joins expansion sections into one.
+public interface MazeGrid extends MazeView {
+
+    void setRightWall(int r, int c, boolean wall);
+
+    void setBottomWall(int r, int c, boolean wall);
+}
@@ -0,0 +1,101 @@
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+// Mazes generated ahead of time on a background thread, so restart and expansion take one that's already built.
+// mazes come in lines, one per size: the k-th maze taken for a size always has seed mixSeed(lineSeed, k), so
+// which mazes a game gets depends only on the pool seed and the order of takes, never on timing.
+// each line keeps up to depth mazes queued ahead. only the MAX_ACTIVE_LINES most recently used sizes keep
+// theirs, a size that stops being used drops its queue but keeps its count, so it never repeats a maze.
+// depth 0 = no background thread, take builds every maze itself (same mazes, just not ahead of time).
+// one pool belongs to one game: take and prepare are called from a single thread, only generation runs elsewhere.
+class MazePool {
+    static final int DEFAULT_DEPTH = 2;
+    static final int MAX_ACTIVE_LINES = 3;
+
+    private final long seed;
+    private final Tuning tuning;
+    private final int depth;
+    private final ExecutorService worker;
+    private final Map<Long, Line> lines = new HashMap<>();
+    private final ArrayDeque<Line> active = new ArrayDeque<>(); // most recently used first
+
+    private static final class Line {
+        final int rows, cols;
+        final long seed;
+        long taken = 0; // mazes handed out so far, queued[i] is maze number taken + i
+        final ArrayDeque<FutureTask<MazeGrid>> queued = new ArrayDeque<>();
+
+        Line(int rows, int cols, long seed) {
+            this.rows = rows;
+            this.cols = cols;
+            this.seed = seed;
+        }
+    }
+
+    MazePool(long seed, Tuning tuning, int depth) {
+        this.seed = seed;
+        this.tuning = tuning;
+        this.depth = depth;
+        worker = depth == 0 ? null : Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "maze-pool");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY); // never competes with the game loop
+            return t;
+        });
+    }
+
+    // the next maze of this size, waits only if it isn't finished yet (or builds it here if not even started)
+    MazeGrid take(int rows, int cols) {
+        Line line = use(rows, cols);
+        FutureTask<MazeGrid> task = line.queued.poll();
+        if (task == null) task = task(line, line.taken);
+        line.taken++;
+        fill(line);
+        task.run(); // does nothing if the worker already has it
+        try {
+            return task.get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException("maze generation failed", e);
+        }
+    }
+
+    // start building mazes of this size in the background, ahead of the take that will need them
+    void prepare(int rows, int cols) {
+        fill(use(rows, cols));
+    }
+
+    private Line use(int rows, int cols) {
+        long key = (long) rows << 32 | cols;
+        Line line = lines.get(key);
+        if (line == null) {
+            line = new Line(rows, cols, MazeGeneratorA.mixSeed(seed, key));
+            lines.put(key, line);
+        }
+        active.remove(line);
+        active.addFirst(line);
+        if (active.size() > MAX_ACTIVE_LINES) {
+            Line idle = active.removeLast();
+            for (FutureTask<MazeGrid> task : idle.queued) task.cancel(false);
+            idle.queued.clear();
+        }
+        return line;
+    }
+
+    private void fill(Line line) {
+        while (line.queued.size() < depth) {
+            FutureTask<MazeGrid> task = task(line, line.taken + line.queued.size());
+            line.queued.add(task);
+            worker.execute(task);
+        }
+    }
+
+    private FutureTask<MazeGrid> task(Line line, long index) {
+        long mazeSeed = MazeGeneratorA.mixSeed(line.seed, index);
+        return new FutureTask<>(() -> MazeGenerator.generateMaze(line.rows, line.cols, mazeSeed, false, tuning));
+    }
+}
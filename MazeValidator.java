@@ -0,0 +1,268 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Checks that a maze is playable: every cell reachable from the start (0, 0), the exit in the lower-right
+// included, and no closed blocks (four walls meeting in one point, the solid 2x2 look MazeGenerator avoids).
+// repair fixes both with as few openings as it can: components - 1 walls join the isolated regions to the rest
+// (one opening joins at most two parts, so no fewer can do it), and two closed blocks next to each other share
+// the one opening that clears them both. a check is one pass over the walls with a union-find, linear in the cells.
+// run: java MazeValidator [mazes] [rows] [cols] [seed]   generates mazes (maze i from seed mixSeed(seed, i), like
+//                                                        MazeAnalyzer) and validates them in parallel. then breaks
+//                                                        each one on purpose, repairs it and checks it again. exits
+//                                                        with status 1 if any maze fails or any repair doesn't
+//                                                        validate, for CI
+//      java MazeValidator <file.maze>...                 validates saved levels
+public class MazeValidator {
+    private static final int MAZES_PER_TASK = 256;
+    private static final int MAX_LISTED = 10; // failing seeds printed by the batch run
+    private static final int BREAK_ONE_IN = 4; // inner walls the batch run closes before a repair, about one in this
+
+    private UnionFind uf; // kept between mazes of the same size, one validator per thread
+
+    // what a check found, repair reports the maze as it was before it was fixed
+    static final class Report {
+        int components;        // connected parts, 1 for a playable maze
+        long unreachableCells; // cells the start can't get to
+        boolean exitReachable;
+        int closedBlocks;
+        int openedWalls;       // walls repair knocked down
+
+        boolean valid() {
+            return components == 1 && closedBlocks == 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d part(s), %d unreachable cell(s), exit %s, %d closed block(s)%s",
+                    valid() ? "ok" : "INVALID", components, unreachableCells,
+                    exitReachable ? "reachable" : "UNREACHABLE", closedBlocks,
+                    openedWalls > 0 ? ", repaired with " + openedWalls + " opening(s)" : "");
+        }
+    }
+
+    Report check(MazeView maze) {
+        int rows = maze.rows(), cols = maze.cols();
+        Report report = new Report();
+        report.components = connect(maze);
+        int start = uf.find(0);
+        report.exitReachable = uf.find(rows * cols - 1) == start;
+        for (int i = 0; i < rows * cols; i++) {
+            if (uf.find(i) != start) report.unreachableCells++;
+        }
+        report.closedBlocks = countClosedBlocks(maze);
+        return report;
+    }
+
+    // joins every region to the rest, then opens the closed blocks. rnd picks the wall for a block on its own
+    Report repair(MazeGrid maze, SplittableRandom rnd) {
+        Report report = check(maze);
+        int rows = maze.rows(), cols = maze.cols();
+        int components = report.components;
+        for (int r = 0; r < rows && components > 1; r++) {
+            for (int c = 0; c < cols; c++) {
+                int cell = r * cols + c;
+                // a standing wall between two parts, after connect those are exactly the walls union accepts
+                if (c + 1 < cols && uf.union(cell, cell + 1)) {
+                    maze.setRightWall(r, c, false);
+                    report.openedWalls++;
+                    components--;
+                }
+                if (r + 1 < rows && uf.union(cell, cell + cols)) {
+                    maze.setBottomWall(r, c, false);
+                    report.openedWalls++;
+                    components--;
+                }
+            }
+        }
+        report.openedWalls += openClosedBlocks(maze, rnd);
+        return report;
+    }
+
+    // unions every pair of cells with an open wall between them, returns the number of parts
+    private int connect(MazeView maze) {
+        int rows = maze.rows(), cols = maze.cols();
+        if (uf == null || uf.size() != rows * cols) uf = new UnionFind(rows * cols);
+        else uf.reset();
+        int components = rows * cols;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int cell = r * cols + c;
+                if (c + 1 < cols && !maze.hasRightWall(r, c) && uf.union(cell, cell + 1)) components--;
+                if (r + 1 < rows && !maze.hasBottomWall(r, c) && uf.union(cell, cell + cols)) components--;
+            }
+        }
+        return components;
+    }
+
+    // a closed block is an inner corner point (vr, vc), the top-left corner of cell (vr, vc), with all four walls
+    // meeting in it: the walls of cells (vr - 1, vc - 1), (vr - 1, vc) and (vr, vc - 1) that touch the point
+    private static boolean closedBlock(MazeView maze, int vr, int vc) {
+        return maze.hasRightWall(vr - 1, vc - 1) && maze.hasRightWall(vr, vc - 1)
+                && maze.hasBottomWall(vr - 1, vc - 1) && maze.hasBottomWall(vr - 1, vc);
+    }
+
+    static int countClosedBlocks(MazeView maze) {
+        int count = 0;
+        for (int vr = 1; vr < maze.rows(); vr++) {
+            for (int vc = 1; vc < maze.cols(); vc++) {
+                if (closedBlock(maze, vr, vc)) count++;
+            }
+        }
+        return count;
+    }
+
+    // opens one wall per closed block, in one pass. a block whose right or lower neighbour is closed too gets the
+    // wall between them, which clears both, otherwise the wall above or left of the point, picked at random.
+    // inner walls only, and opening walls never disconnects anything. returns the walls opened
+    static int openClosedBlocks(MazeGrid maze, SplittableRandom rnd) {
+        int rows = maze.rows(), cols = maze.cols();
+        int opened = 0;
+        for (int vr = 1; vr < rows; vr++) {
+            for (int vc = 1; vc < cols; vc++) {
+                if (!closedBlock(maze, vr, vc)) continue;
+                if (vc + 1 < cols && closedBlock(maze, vr, vc + 1)) {
+                    maze.setBottomWall(vr - 1, vc, false);
+                } else if (vr + 1 < rows && closedBlock(maze, vr + 1, vc)) {
+                    maze.setRightWall(vr, vc - 1, false);
+                } else if (rnd.nextBoolean()) {
+                    maze.setRightWall(vr - 1, vc - 1, false);
+                } else {
+                    maze.setBottomWall(vr - 1, vc - 1, false);
+                }
+                opened++;
+            }
+        }
+        return opened;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && !args[0].matches("\\d+")) {
+            boolean allValid = true;
+            MazeValidator validator = new MazeValidator();
+            for (String file : args) {
+                Report report = validator.check(MazeFile.open(Paths.get(file)));
+                System.out.println(file + " " + report);
+                allValid &= report.valid();
+            }
+            if (!allValid) System.exit(1);
+            return;
+        }
+
+        int mazes = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 15;
+        int cols = args.length > 2 ? Integer.parseInt(args[2]) : 15;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1L;
+        Tuning tuning = Tuning.fromProperties();
+
+        Totals totals = new Totals();
+        long start = System.nanoTime();
+        ForkJoinPool.commonPool().invoke(new ValidateRange(totals, 0, mazes, rows, cols, seed, tuning));
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d mazes of %dx%d, %s, %.2f s (%.0f mazes/s)%n",
+                mazes, rows, cols, tuning, seconds, mazes / seconds);
+        System.out.printf("invalid %d  exit unreachable %d  with isolated regions %d  with closed blocks %d%n",
+                totals.invalid, totals.exitUnreachable, totals.isolated, totals.closed);
+        for (int i = 0; i < Math.min(MAX_LISTED, totals.invalid); i++) {
+            System.out.printf("  maze %d, seed %d%n", totals.failed[i], MazeGeneratorA.mixSeed(seed, totals.failed[i]));
+        }
+        System.out.printf("broken on purpose %d (isolated regions %d), repaired with %d opening(s), still invalid %d%n",
+                totals.broken, totals.brokenIsolated, totals.openedWalls, totals.unrepaired);
+        if (totals.invalid > 0 || totals.unrepaired > 0) System.exit(1);
+    }
+
+    // counts over the whole batch, every task adds its own in once at the end
+    static final class Totals {
+        long invalid, exitUnreachable, isolated, closed;
+        long broken, brokenIsolated, openedWalls, unrepaired;
+        final int[] failed = new int[MAX_LISTED]; // the first failing mazes any task reported
+
+        synchronized void add(Totals part) {
+            for (int i = 0; i < part.invalid && invalid + i < MAX_LISTED; i++) {
+                failed[(int) invalid + i] = part.failed[i];
+            }
+            invalid += part.invalid;
+            exitUnreachable += part.exitUnreachable;
+            isolated += part.isolated;
+            closed += part.closed;
+            broken += part.broken;
+            brokenIsolated += part.brokenIsolated;
+            openedWalls += part.openedWalls;
+            unrepaired += part.unrepaired;
+        }
+    }
+
+    // splits the maze range in halves until it's small, then validates it with one validator
+    private static final class ValidateRange extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final Totals totals;
+        private final int from, to, rows, cols;
+        private final long seed;
+        private final Tuning tuning;
+
+        ValidateRange(Totals totals, int from, int to, int rows, int cols, long seed, Tuning tuning) {
+            this.totals = totals;
+            this.from = from;
+            this.to = to;
+            this.rows = rows;
+            this.cols = cols;
+            this.seed = seed;
+            this.tuning = tuning;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > MAZES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new ValidateRange(totals, from, mid, rows, cols, seed, tuning),
+                        new ValidateRange(totals, mid, to, rows, cols, seed, tuning));
+                return;
+            }
+            MazeValidator validator = new MazeValidator();
+            Totals part = new Totals();
+            for (int i = from; i < to; i++) {
+                MazeGrid maze = MazeGenerator.generateMaze(rows, cols, MazeGeneratorA.mixSeed(seed, i), false, tuning);
+                Report report = validator.check(maze);
+                if (!report.exitReachable) part.exitUnreachable++;
+                if (report.components > 1) part.isolated++;
+                if (report.closedBlocks > 0) part.closed++;
+                if (!report.valid()) {
+                    if (part.invalid < MAX_LISTED) part.failed[(int) part.invalid] = i;
+                    part.invalid++;
+                }
+
+                SplittableRandom rnd = new SplittableRandom(MazeGeneratorA.mixSeed(seed, i));
+                if (!breakWalls(maze, rnd)) continue;
+                part.broken++;
+                Report repaired = validator.repair(maze, rnd);
+                if (repaired.components > 1) part.brokenIsolated++;
+                part.openedWalls += repaired.openedWalls;
+                if (!validator.check(maze).valid()) part.unrepaired++;
+            }
+            totals.add(part);
+        }
+    }
+
+    // closes about one in BREAK_ONE_IN inner walls, which leaves closed blocks and usually cuts off some cells,
+    // false if that happened to close none
+    static boolean breakWalls(MazeGrid maze, SplittableRandom rnd) {
+        boolean closed = false;
+        for (int r = 0; r < maze.rows(); r++) {
+            for (int c = 0; c < maze.cols(); c++) {
+                if (c + 1 < maze.cols() && !maze.hasRightWall(r, c) && rnd.nextInt(BREAK_ONE_IN) == 0) {
+                    maze.setRightWall(r, c, true);
+                    closed = true;
+                }
+                if (r + 1 < maze.rows() && !maze.hasBottomWall(r, c) && rnd.nextInt(BREAK_ONE_IN) == 0) {
+                    maze.setBottomWall(r, c, true);
+                    closed = true;
+                }
+            }
+        }
+        return closed;
+    }
+}
@@ -0,0 +1,22 @@
+// Read-only wall access, for everything that only looks at a maze: searches, analysis, printing, drawing.
+// Every cell owns its right wall and its bottom wall; the outer top/left border is implied.
+// mazes generated on demand or mapped from a file (ChunkedMazeWorld, MazeFile) are only views, MazeGrid adds the setters.
+public interface MazeView {
+
+    int rows();
+
+    int cols();
+
+    boolean hasRightWall(int r, int c);
+
+    boolean hasBottomWall(int r, int c);
+
+    // wall check between two neighbouring cells, anything that isn't a neighbour counts as blocked
+    default boolean isBlocked(int r1, int c1, int r2, int c2) {
+        if (r2 == r1 - 1 && c2 == c1) return hasBottomWall(r2, c2);
+        if (r2 == r1 + 1 && c2 == c1) return hasBottomWall(r1, c1);
+        if (c2 == c1 - 1 && r2 == r1) return hasRightWall(r2, c2);
+        if (c2 == c1 + 1 && r2 == r1) return hasRightWall(r1, c1);
+        return true;
+    }
+}
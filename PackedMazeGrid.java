@@ -0,0 +1,148 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+// MazeGrid backed by two bitsets (right walls, bottom walls), so a cell costs 2 bits instead of a Cell object.
+// bit index is row-major: r * stride + c. stride is cols unless the grid has grown sideways, bits past the last
+// column (and past the last row) are spare capacity, and always have their walls standing.
+public class PackedMazeGrid implements MazeGrid {
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private final int rows, cols;
+    private final int stride;
+    private final long[] rightWalls;
+    private final long[] bottomWalls;
+
+    // starts with every wall standing, like a freshly generated grid before carving
+    public PackedMazeGrid(int rows, int cols) {
+        this(rows, cols, cols, allWalls(rows, cols), allWalls(rows, cols));
+    }
+
+    // wraps bitsets laid out as above, MazeFile loads straight into these
+    PackedMazeGrid(int rows, int cols, long[] rightWalls, long[] bottomWalls) {
+        this(rows, cols, cols, rightWalls, bottomWalls);
+        long cells = (long) rows * cols;
+        if ((cells & 63) != 0) { // the unused end of the last word is capacity too
+            rightWalls[(int) (cells >>> 6)] |= -1L << cells;
+            bottomWalls[(int) (cells >>> 6)] |= -1L << cells;
+        }
+    }
+
+    private PackedMazeGrid(int rows, int cols, int stride, long[] rightWalls, long[] bottomWalls) {
+        this.rows = rows;
+        this.cols = cols;
+        this.stride = stride;
+        this.rightWalls = rightWalls;
+        this.bottomWalls = bottomWalls;
+    }
+
+    private static long[] allWalls(int rows, int cols) {
+        long[] bits = new long[(int) (((long) rows * cols + 63) >>> 6)];
+        Arrays.fill(bits, -1L);
+        return bits;
+    }
+
+    // extraRows more rows and extraCols more columns, the new cells with every wall standing, the rest unchanged.
+    // the bigger grid gets its own bitsets, so this one (which another thread may still be drawing) is never
+    // written again. while the spare capacity lasts that's one bulk copy of the words, 2 bits per cell, and no
+    // per-cell work; otherwise it moves to bitsets half again as big as needed, laid out a row at a time
+    PackedMazeGrid grow(int extraRows, int extraCols) {
+        int newRows = rows + extraRows, newCols = cols + extraCols;
+        if (newCols <= stride) { // the layout stays, the bitsets get longer if they're out of rows
+            long capacity = (long) rightWalls.length << 6;
+            int words = (long) newRows * stride <= capacity ? rightWalls.length
+                    : (int) (((long) (newRows + newRows / 2) * stride + 63) >>> 6);
+            return new PackedMazeGrid(newRows, newCols, stride,
+                    extend(rightWalls, words), extend(bottomWalls, words));
+        }
+        int newStride = Math.max(newCols, stride + stride / 2);
+        int words = (int) (((long) (newRows + (extraRows > 0 ? newRows / 2 : 0)) * newStride + 63) >>> 6);
+        long[] right = new long[words], bottom = new long[words];
+        Arrays.fill(right, -1L);
+        Arrays.fill(bottom, -1L);
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c += 64) { // a row at a time, 64 cells per step
+                int n = Math.min(64, cols - c);
+                long from = index(r, c), to = (long) r * newStride + c;
+                putBits(right, to, getBits(rightWalls, from), n);
+                putBits(bottom, to, getBits(bottomWalls, from), n);
+            }
+        }
+        return new PackedMazeGrid(newRows, newCols, newStride, right, bottom);
+    }
+
+    // the 64 bits starting at bit i, wherever they fall across words (past the end reads as walls)
+    private static long getBits(long[] bits, long i) {
+        int w = (int) (i >>> 6), shift = (int) (i & 63);
+        if (shift == 0) return bits[w];
+        long high = w + 1 < bits.length ? bits[w + 1] : -1L;
+        return bits[w] >>> shift | high << (64 - shift);
+    }
+
+    // the low n bits of value into bits i .. i + n - 1
+    private static void putBits(long[] bits, long i, long value, int n) {
+        int w = (int) (i >>> 6), shift = (int) (i & 63);
+        long mask = n == 64 ? -1L : (1L << n) - 1;
+        value &= mask;
+        bits[w] = bits[w] & ~(mask << shift) | value << shift;
+        if (shift + n > 64) {
+            long spill = (1L << (shift + n - 64)) - 1;
+            bits[w + 1] = bits[w + 1] & ~spill | value >>> (64 - shift);
+        }
+    }
+
+    private static long[] extend(long[] bits, int words) {
+        long[] longer = Arrays.copyOf(bits, words);
+        Arrays.fill(longer, bits.length, words, -1L);
+        return longer;
+    }
+
+    @Override public int rows() { return rows; }
+    @Override public int cols() { return cols; }
+
+    @Override
+    public boolean hasRightWall(int r, int c) {
+        return get(rightWalls, index(r, c));
+    }
+
+    @Override
+    public boolean hasBottomWall(int r, int c) {
+        return get(bottomWalls, index(r, c));
+    }
+
+    @Override
+    public void setRightWall(int r, int c, boolean wall) {
+        set(rightWalls, index(r, c), wall);
+    }
+
+    @Override
+    public void setBottomWall(int r, int c, boolean wall) {
+        set(bottomWalls, index(r, c), wall);
+    }
+
+    // knocks down a wall while other threads may be carving cells that share the same 64-bit word
+    public void openWallAtomic(int r, int c, boolean right) {
+        long i = index(r, c);
+        WORDS.getAndBitwiseAnd(right ? rightWalls : bottomWalls, (int) (i >>> 6), ~(1L << i));
+    }
+
+    // the raw bitsets, for MazeFile to write out without going cell by cell (only laid out like the file when
+    // the stride is cols)
+    int stride() { return stride; }
+    long[] rightWords() { return rightWalls; }
+    long[] bottomWords() { return bottomWalls; }
+
+    private long index(int r, int c) {
+        return (long) r * stride + c;
+    }
+
+    private static boolean get(long[] bits, long i) {
+        return (bits[(int) (i >>> 6)] & (1L << i)) != 0;
+    }
+
+    private static void set(long[] bits, long i, boolean value) {
+        int w = (int) (i >>> 6);
+        if (value) bits[w] |= 1L << i;
+        else       bits[w] &= ~(1L << i);
+    }
+}
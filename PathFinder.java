@@ -0,0 +1,360 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Search strategies for a single enemy chasing a single target.
+// nextStep gives the first cell (row-major index) on a shortest path from (sr, sc) to (tr, tc),
+// or -1 when already there or the target can't be reached.
+// every strategy works on int arrays it keeps between calls (no Point objects, no clearing thanks to
+// a generation stamp), so one instance must not be shared between threads.
+// run: java PathFinder check [mazes]  checks every strategy's steps against a BFS, exits 1 if one isn't shortest
+interface PathFinder {
+
+    int nextStep(MazeView maze, int sr, int sc, int tr, int tc);
+
+    // "bfs", "astar", "bidi", "corridor" or "table" (a RoutingTable within -Dmaze.routingBudget bytes),
+    // anything else falls back to A*
+    static PathFinder forName(String name) {
+        switch (name) {
+            case "bfs":      return new Bfs();
+            case "bidi":     return new Bidirectional();
+            case "corridor": return new CorridorJump();
+            case "table":    return new RoutingTable(Long.getLong("maze.routingBudget", RoutingTable.DEFAULT_BUDGET));
+            default:         return new AStar();
+        }
+    }
+
+    // game mazes, perfect mazes and mazes with walls closed at random (so some targets can't be reached), random
+    // source and target pairs. each strategy's step must be -1 exactly when there's no path, and otherwise an open
+    // neighbour one step closer to the target by BFS distance (DistanceField from the target). ties between
+    // equally short paths may go either way
+    static void main(String[] args) {
+        if (args.length == 0 || !args[0].equals("check")) {
+            System.err.println("usage: java PathFinder check [mazes]");
+            return;
+        }
+        int mazes = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        String[] names = {"bfs", "astar", "bidi", "corridor", "table"};
+        PathFinder[] finders = new PathFinder[names.length];
+        for (int i = 0; i < names.length; i++) finders[i] = forName(names[i]);
+        long[] wrong = new long[names.length];
+        SplittableRandom rnd = new SplittableRandom(1);
+        DistanceField field = new DistanceField();
+        long queries = 0;
+        long start = System.nanoTime();
+        for (int m = 0; m < mazes; m++) {
+            int rows = 2 + rnd.nextInt(50), cols = 2 + rnd.nextInt(50);
+            MazeGrid maze = m % 3 == 1 ? MazeGeneratorA.generateMaze(rows, cols, m)
+                    : MazeGenerator.generateMaze(rows, cols, m);
+            if (m % 3 == 2) MazeValidator.breakWalls(maze, rnd);
+            for (int q = 0; q < 50; q++) {
+                int sr = rnd.nextInt(rows), sc = rnd.nextInt(cols), tr = rnd.nextInt(rows), tc = rnd.nextInt(cols);
+                field.rebuild(maze, tr, tc);
+                int d = field.distance(sr, sc);
+                boolean none = d == 0 || d == DistanceField.UNREACHABLE;
+                queries++;
+                for (int i = 0; i < finders.length; i++) {
+                    int step = finders[i].nextStep(maze, sr, sc, tr, tc);
+                    boolean ok;
+                    if (step < 0 || none) {
+                        ok = step < 0 && none;
+                    } else {
+                        int r = step / cols, c = step % cols;
+                        ok = step < rows * cols && Math.abs(r - sr) + Math.abs(c - sc) == 1
+                                && !maze.isBlocked(sr, sc, r, c) && field.distance(r, c) == d - 1;
+                    }
+                    if (!ok) wrong[i]++;
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d maze(s), %d queries per strategy, %.2f s%n", mazes, queries, seconds);
+        boolean failed = false;
+        for (int i = 0; i < names.length; i++) {
+            System.out.printf("  %-9s %d step(s) not on a shortest path%n", names[i], wrong[i]);
+            failed |= wrong[i] != 0;
+        }
+        if (failed) {
+            System.out.println("FAILED: every strategy must step along a shortest path");
+            System.exit(1);
+        }
+    }
+
+    // per-cell scratch arrays shared by the strategies
+    abstract class Search implements PathFinder {
+        int rows, cols;
+        int stamp;           // current search id, a cell counts as seen only if seen[cell] == stamp
+        int[] seen = new int[0];
+        int[] first = new int[0]; // first step from the source on the best known path to this cell
+        int[] dist = new int[0];
+
+        void begin(MazeView maze) {
+            rows = maze.rows();
+            cols = maze.cols();
+            int cells = rows * cols;
+            if (seen.length < cells) {
+                seen = new int[cells];
+                first = new int[cells];
+                dist = new int[cells];
+                stamp = 0;
+            }
+            if (++stamp == Integer.MAX_VALUE) { // wrapped around, old stamps could collide
+                Arrays.fill(seen, 0);
+                stamp = 1;
+            }
+        }
+
+        // the 4 neighbours of cell that aren't behind a wall, up/down/left/right, -1 for blocked
+        static int neighbour(MazeView maze, int cols, int cell, int dir) {
+            int r = cell / cols, c = cell % cols;
+            switch (dir) {
+                case 0:  return r > 0 && !maze.hasBottomWall(r - 1, c) ? cell - cols : -1;
+                case 1:  return r < maze.rows() - 1 && !maze.hasBottomWall(r, c) ? cell + cols : -1;
+                case 2:  return c > 0 && !maze.hasRightWall(r, c - 1) ? cell - 1 : -1;
+                default: return c < cols - 1 && !maze.hasRightWall(r, c) ? cell + 1 : -1;
+            }
+        }
+
+        int manhattan(int a, int b) {
+            return Math.abs(a / cols - b / cols) + Math.abs(a % cols - b % cols);
+        }
+    }
+
+    // plain breadth-first search, the baseline the other strategies are measured against
+    class Bfs extends Search {
+        private int[] queue = new int[0];
+
+        @Override
+        public int nextStep(MazeView maze, int sr, int sc, int tr, int tc) {
+            begin(maze);
+            int src = sr * cols + sc, dst = tr * cols + tc;
+            if (src == dst) return -1;
+            if (queue.length < rows * cols) queue = new int[rows * cols];
+
+            int head = 0, tail = 0;
+            seen[src] = stamp;
+            queue[tail++] = src;
+            while (head < tail) {
+                int cell = queue[head++];
+                for (int dir = 0; dir < 4; dir++) {
+                    int n = neighbour(maze, cols, cell, dir);
+                    if (n < 0 || seen[n] == stamp) continue;
+                    seen[n] = stamp;
+                    first[n] = cell == src ? n : first[cell];
+                    if (n == dst) return first[n];
+                    queue[tail++] = n;
+                }
+            }
+            return -1;
+        }
+    }
+
+    // A* with the manhattan distance, which never overestimates on a 4-connected grid
+    // open set is a binary heap of cell indices keyed by f = g + h, stale entries are skipped when popped
+    class AStar extends Search {
+        int[] heapCell = new int[16];
+        int[] heapKey = new int[16];
+        int heapSize;
+
+        @Override
+        public int nextStep(MazeView maze, int sr, int sc, int tr, int tc) {
+            begin(maze);
+            int src = sr * cols + sc, dst = tr * cols + tc;
+            if (src == dst) return -1;
+
+            heapSize = 0;
+            seen[src] = stamp;
+            dist[src] = 0;
+            push(src, manhattan(src, dst));
+            while (heapSize > 0) {
+                int key = heapKey[0];
+                int cell = pop();
+                if (key - manhattan(cell, dst) != dist[cell]) continue; // a shorter route to this cell was queued later
+                if (cell == dst) return first[cell];
+                expand(maze, cell, src, dst);
+            }
+            return -1;
+        }
+
+        void expand(MazeView maze, int cell, int src, int dst) {
+            int g = dist[cell] + 1;
+            for (int dir = 0; dir < 4; dir++) {
+                int n = neighbour(maze, cols, cell, dir);
+                if (n < 0) continue;
+                relax(n, g, cell == src ? n : first[cell], dst);
+            }
+        }
+
+        void relax(int cell, int g, int firstStep, int dst) {
+            if (seen[cell] == stamp && dist[cell] <= g) return;
+            seen[cell] = stamp;
+            dist[cell] = g;
+            first[cell] = firstStep;
+            push(cell, g + manhattan(cell, dst));
+        }
+
+        void push(int cell, int key) {
+            if (heapSize == heapCell.length) {
+                heapCell = Arrays.copyOf(heapCell, heapSize * 2);
+                heapKey = Arrays.copyOf(heapKey, heapSize * 2);
+            }
+            int i = heapSize++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heapKey[parent] <= key) break;
+                heapCell[i] = heapCell[parent];
+                heapKey[i] = heapKey[parent];
+                i = parent;
+            }
+            heapCell[i] = cell;
+            heapKey[i] = key;
+        }
+
+        int pop() {
+            int top = heapCell[0];
+            int cell = heapCell[--heapSize];
+            int key = heapKey[heapSize];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) break;
+                if (child + 1 < heapSize && heapKey[child + 1] < heapKey[child]) child++;
+                if (heapKey[child] >= key) break;
+                heapCell[i] = heapCell[child];
+                heapKey[i] = heapKey[child];
+                i = child;
+            }
+            heapCell[i] = cell;
+            heapKey[i] = key;
+            return top;
+        }
+    }
+
+    // A* where straight runs of corridor (cells with exactly two openings) are skipped in one move,
+    // so only junctions, dead ends and the target ever enter the open set. jump-point search, but for mazes:
+    // dead ends that aren't the target are dropped since nothing can be reached through them.
+    class CorridorJump extends AStar {
+        @Override
+        void expand(MazeView maze, int cell, int src, int dst) {
+            for (int dir = 0; dir < 4; dir++) {
+                int prev = cell;
+                int cur = neighbour(maze, cols, cell, dir);
+                if (cur < 0) continue;
+                int firstStep = cell == src ? cur : first[cell];
+                int g = dist[cell] + 1;
+
+                // follow the corridor until it branches, ends, or hits the target
+                while (cur != dst) {
+                    int next = -1, openings = 0;
+                    for (int d = 0; d < 4; d++) {
+                        int n = neighbour(maze, cols, cur, d);
+                        if (n < 0) continue;
+                        openings++;
+                        if (n != prev) next = n;
+                    }
+                    if (openings != 2) break;
+                    prev = cur;
+                    cur = next;
+                    g++;
+                    if (cur == cell) break; // ran round a loop back to where we started
+                }
+                if (cur == cell) continue;
+                if (cur != dst && isDeadEnd(maze, cur)) continue;
+                relax(cur, g, firstStep, dst);
+            }
+        }
+
+        private boolean isDeadEnd(MazeView maze, int cell) {
+            int openings = 0;
+            for (int d = 0; d < 4; d++) {
+                if (neighbour(maze, cols, cell, d) >= 0) openings++;
+            }
+            return openings == 1;
+        }
+    }
+
+    // BFS from both ends at once, always growing the smaller frontier by one full layer.
+    // dist[] is used by the forward side, distBack[] by the backward side (both under the same stamp pair)
+    class Bidirectional extends Search {
+        private int[] seenBack = new int[0];
+        private int[] distBack = new int[0];
+        private int[] front = new int[0], back = new int[0], nextLayer = new int[0];
+
+        @Override
+        public int nextStep(MazeView maze, int sr, int sc, int tr, int tc) {
+            begin(maze);
+            int src = sr * cols + sc, dst = tr * cols + tc;
+            if (src == dst) return -1;
+            int cells = rows * cols;
+            if (seenBack.length < cells) {
+                seenBack = new int[cells];
+                distBack = new int[cells];
+                front = new int[cells];
+                back = new int[cells];
+                nextLayer = new int[cells];
+            }
+            if (stamp == 1) Arrays.fill(seenBack, 0); // begin() just reset the forward stamps
+
+            int frontSize = 1, backSize = 1;
+            front[0] = src;
+            back[0] = dst;
+            seen[src] = stamp;
+            dist[src] = 0;
+            seenBack[dst] = stamp;
+            distBack[dst] = 0;
+
+            while (frontSize > 0 && backSize > 0) {
+                int bestTotal = Integer.MAX_VALUE, bestStep = -1;
+                boolean forward = frontSize <= backSize;
+                int[] layer = forward ? front : back;
+                int size = forward ? frontSize : backSize;
+                int nextSize = 0;
+
+                for (int i = 0; i < size; i++) {
+                    int cell = layer[i];
+                    for (int dir = 0; dir < 4; dir++) {
+                        int n = neighbour(maze, cols, cell, dir);
+                        if (n < 0) continue;
+                        if (forward) {
+                            if (seenBack[n] == stamp) { // frontiers touch across the edge cell -> n
+                                int total = dist[cell] + 1 + distBack[n];
+                                if (total < bestTotal) {
+                                    bestTotal = total;
+                                    bestStep = cell == src ? n : first[cell];
+                                }
+                            }
+                            if (seen[n] == stamp) continue;
+                            seen[n] = stamp;
+                            dist[n] = dist[cell] + 1;
+                            first[n] = cell == src ? n : first[cell];
+                        } else {
+                            if (seen[n] == stamp) { // edge n -> cell, n already reached from the source
+                                int total = dist[n] + 1 + distBack[cell];
+                                if (total < bestTotal) {
+                                    bestTotal = total;
+                                    bestStep = n == src ? cell : first[n];
+                                }
+                            }
+                            if (seenBack[n] == stamp) continue;
+                            seenBack[n] = stamp;
+                            distBack[n] = distBack[cell] + 1;
+                        }
+                        nextLayer[nextSize++] = n;
+                    }
+                }
+                // finishing the whole layer before stopping makes sure the meeting point found is the closest one
+                if (bestStep >= 0) return bestStep;
+
+                int[] swap = layer;
+                if (forward) {
+                    front = nextLayer;
+                    frontSize = nextSize;
+                } else {
+                    back = nextLayer;
+                    backSize = nextSize;
+                }
+                nextLayer = swap;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+// Stand-ins for the keyboard when a game is played without a window (GameSimulator).
+// nextMove is asked once per player move and answers one of GameEngine's directions.
+// instances keep scratch arrays between calls, so each game needs its own.
+interface PlayerInput {
+
+    int nextMove(GameState state);
+
+    // "seek" or "cautious", or a key script like "ddssdd" (see Scripted)
+    static PlayerInput forName(String name) {
+        switch (name) {
+            case "seek":     return new ExitSeeker();
+            case "cautious": return new Cautious();
+            default:         return new Scripted(name);
+        }
+    }
+
+    // direction that takes the player from its cell to the neighbouring cell, STAY if it isn't a neighbour
+    static int direction(GameState state, int cell) {
+        if (cell < 0) return GameEngine.STAY;
+        int r = cell / state.cols, c = cell % state.cols;
+        if (r == state.playerRow - 1 && c == state.playerCol) return GameEngine.UP;
+        if (r == state.playerRow + 1 && c == state.playerCol) return GameEngine.DOWN;
+        if (r == state.playerRow && c == state.playerCol - 1) return GameEngine.LEFT;
+        if (r == state.playerRow && c == state.playerCol + 1) return GameEngine.RIGHT;
+        return GameEngine.STAY;
+    }
+
+    // plays back a fixed key sequence, w/a/s/d like the game and anything else to wait a move.
+    // stands still once the script runs out, handy for regression games with a known outcome
+    class Scripted implements PlayerInput {
+        private final String keys;
+        private int next = 0;
+
+        Scripted(String keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public int nextMove(GameState state) {
+            if (next >= keys.length()) return GameEngine.STAY;
+            switch (keys.charAt(next++)) {
+                case 'w': return GameEngine.UP;
+                case 's': return GameEngine.DOWN;
+                case 'a': return GameEngine.LEFT;
+                case 'd': return GameEngine.RIGHT;
+                default:  return GameEngine.STAY;
+            }
+        }
+    }
+
+    // walks a shortest path to the exit and ignores the enemies completely
+    class ExitSeeker implements PlayerInput {
+        final PathFinder finder = new PathFinder.AStar();
+
+        @Override
+        public int nextMove(GameState state) {
+            return direction(state, finder.nextStep(state.maze, state.playerRow, state.playerCol, state.rows - 1, state.cols - 1));
+        }
+    }
+
+    // heads for the exit like ExitSeeker, but when that step ends next to an enemy it takes whichever
+    // open move (standing still included) keeps the furthest from the closest enemy instead
+    class Cautious extends ExitSeeker {
+        @Override
+        public int nextMove(GameState state) {
+            int cols = state.cols;
+            int step = finder.nextStep(state.maze, state.playerRow, state.playerCol, state.rows - 1, state.cols - 1);
+            if (step < 0 || step == (state.rows - 1) * cols + cols - 1 || enemyDistance(state, step, 1) > 1) {
+                return direction(state, step);
+            }
+
+            int here = state.playerRow * cols + state.playerCol;
+            // the step is next to an enemy, so here is at most 2 from one and its neighbours at most 3:
+            // distances up to 3 are all the comparisons below ever see
+            int best = GameEngine.STAY, bestDist = enemyDistance(state, here, 3);
+            for (int dir = 0; dir < 4; dir++) {
+                int n = PathFinder.Search.neighbour(state.maze, cols, here, dir);
+                if (n < 0) continue;
+                int d = enemyDistance(state, n, 3);
+                if (d > bestDist) {
+                    best = dir;
+                    bestDist = d;
+                }
+            }
+            return best;
+        }
+
+        // manhattan distance from cell to the closest enemy, anything past radius counts as radius + 1
+        private static int enemyDistance(GameState state, int cell, int radius) {
+            return state.enemies.nearest(cell / state.cols, cell % state.cols, radius);
+        }
+    }
+}
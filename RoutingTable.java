@@ -0,0 +1,344 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Next hops between any two cells of one maze, worked out once per maze so that a query is a lookup, not a search.
+// two layouts, both held to a memory budget (-Dmaze.routingBudget, in bytes, default 16MB):
+//   tree   a perfect maze, one without loops, is its own spanning tree and the path between two cells is unique.
+//          the cells are numbered in DFS order so that x lies below y exactly when tin[y] <= tin[x] < tout[y], and
+//          the next hop is the child whose interval holds the target, or else the parent. 17 bytes per cell and
+//          linear to build
+//   pairs  any other maze (generated game mazes always have loops): per target, the direction of the first step
+//          from every cell, 2 bits each, cells / 4 bytes a row. a row is one BFS, built the first time something
+//          asks for that target. whatever the budget leaves after 17 bytes per cell goes to rows, and once it's
+//          full the least recently used row makes way. the enemies all chase the player, so the rows in use are
+//          the cells the player stood on lately, and a player walking back and forth is served from the table
+// a maze too big for either is answered by A* instead. the step is always the one DistanceField.nextStep takes,
+// the first of up, down, left, right that's one closer to the target, so the game goes exactly the same whether
+// the engine moves its enemies with the table or with its distance field.
+//
+// the table belongs to the maze object it was built for, the engine installs a new one on restart and on every
+// expansion. no call does more than one BFS or tree build over the maze, the same as a distance field rebuild,
+// so nothing ever stalls a tick.
+// like the other PathFinders, one instance must not be shared between threads.
+// run: java RoutingTable check [mazes]  compares every step with DistanceField, exits 1 on a mismatch
+class RoutingTable implements PathFinder {
+    static final long DEFAULT_BUDGET = 16L << 20;
+    private static final int NONE = 0, PAIRS = 1, TREE = 2;
+    private static final int TREE_BYTES_PER_CELL = 17;  // open, component, parent, tin, tout
+    private static final int PAIRS_BYTES_PER_CELL = 17; // open, component, queue, level, slot
+    private static final int ROW_OVERHEAD = 28;         // array header, LRU links and target per row
+
+    private final long budget;
+    private final PathFinder fallback = new AStar();
+
+    private MazeView maze;
+    private int rows, cols, cells;
+    private int layout;
+    private final int[] delta = new int[4]; // index offset per direction, up, down, left, right
+    private byte[] open;     // open directions per cell, bit dir set = no wall that way
+    private int[] component; // connected part of each cell, no route between parts
+    private int[] queue;
+
+    // pairs: the rows live in slots, slot[target] is the target's slot or -1, and the slots in use form a list
+    // from the most recently used (newest) to the least (oldest)
+    private long[][] hops;   // per slot, 32 two-bit directions per word, allocated on first use
+    private int[] slot, target, newer, older;
+    private int used, newest, oldest;
+    private int[] level;     // BFS scratch, -1 between searches
+
+    private int[] parent;    // tree: parent cell, -1 at a root
+    private int[] tin, tout;
+
+    RoutingTable(long budget) {
+        this.budget = budget;
+    }
+
+    // whether the table covers this maze (setting it up for a new one), rather than handing it to A*
+    boolean ready(MazeView maze) {
+        if (maze != this.maze || maze.rows() != rows || maze.cols() != cols) start(maze);
+        return layout != NONE;
+    }
+
+    @Override
+    public int nextStep(MazeView maze, int sr, int sc, int tr, int tc) {
+        if (!ready(maze)) return fallback.nextStep(maze, sr, sc, tr, tc);
+
+        int src = sr * cols + sc, dst = tr * cols + tc;
+        if (src == dst || component[src] != component[dst]) return -1;
+        if (layout == PAIRS) return src + delta[hop(row(dst), src)];
+
+        if (tin[src] <= tin[dst] && tin[dst] < tout[src]) { // target below src: into the child above it
+            for (int dirs = open[src]; dirs != 0; dirs &= dirs - 1) {
+                int n = src + delta[Integer.numberOfTrailingZeros(dirs)];
+                if (parent[n] == src && tin[n] <= tin[dst] && tin[dst] < tout[n]) return n;
+            }
+        }
+        return parent[src];
+    }
+
+    // picks the layout for a new maze, reads its walls and labels its parts, and builds the tree.
+    // pairs rows are left to row
+    private void start(MazeView maze) {
+        this.maze = maze;
+        rows = maze.rows();
+        cols = maze.cols();
+        cells = rows * cols;
+        delta[0] = -cols;
+        delta[1] = cols;
+        delta[2] = -1;
+        delta[3] = 1;
+        free();
+        layout = NONE;
+        if ((long) cells * Math.min(TREE_BYTES_PER_CELL, PAIRS_BYTES_PER_CELL) > budget) return;
+
+        // (the searches never need a bounds check, the border is all walls)
+        open = new byte[cells];
+        long openWalls = 0;
+        for (int r = 0, cell = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++, cell++) {
+                if (c < cols - 1 && !maze.hasRightWall(r, c)) {
+                    open[cell] |= 1 << 3;
+                    open[cell + 1] |= 1 << 2;
+                    openWalls++;
+                }
+                if (r < rows - 1 && !maze.hasBottomWall(r, c)) {
+                    open[cell] |= 1 << 1;
+                    open[cell + cols] |= 1;
+                    openWalls++;
+                }
+            }
+        }
+        component = new int[cells];
+        Arrays.fill(component, -1);
+        queue = new int[cells];
+        int parts = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            if (component[cell] < 0) label(cell, parts++);
+        }
+
+        int rowWords = (cells + 31) >>> 5;
+        long rowsFit = (budget - (long) cells * PAIRS_BYTES_PER_CELL) / (rowWords * 8L + ROW_OVERHEAD);
+        if (openWalls == cells - parts && (long) cells * TREE_BYTES_PER_CELL <= budget) {
+            // a forest has exactly one wall fewer open than cells per part
+            layout = TREE;
+            buildTree();
+            queue = null;
+        } else if (rowsFit >= 1) {
+            layout = PAIRS;
+            int slots = (int) Math.min(rowsFit, cells);
+            hops = new long[slots][];
+            slot = new int[cells];
+            Arrays.fill(slot, -1);
+            target = new int[slots];
+            newer = new int[slots];
+            older = new int[slots];
+            used = 0;
+            newest = oldest = -1;
+            level = new int[cells];
+            Arrays.fill(level, -1);
+        } else {
+            free();
+        }
+    }
+
+    private void free() {
+        open = null;
+        hops = null;
+        component = queue = slot = target = newer = older = level = parent = tin = tout = null;
+    }
+
+    // the row of first steps towards dst, built if it isn't kept, and now the newest
+    private long[] row(int dst) {
+        int s = slot[dst];
+        if (s >= 0) {
+            if (s != newest) {
+                unlink(s);
+                pushNewest(s);
+            }
+            return hops[s];
+        }
+        if (used < hops.length) {
+            s = used++;
+            hops[s] = new long[(cells + 31) >>> 5];
+        } else {
+            s = oldest;
+            unlink(s);
+            slot[target[s]] = -1;
+        }
+        slot[dst] = s;
+        target[s] = dst;
+        pushNewest(s);
+        routesTo(dst, hops[s]);
+        return hops[s];
+    }
+
+    private void unlink(int s) {
+        if (newer[s] >= 0) older[newer[s]] = older[s]; else newest = older[s];
+        if (older[s] >= 0) newer[older[s]] = newer[s]; else oldest = newer[s];
+    }
+
+    private void pushNewest(int s) {
+        newer[s] = -1;
+        older[s] = newest;
+        if (newest >= 0) newer[newest] = s; else oldest = s;
+        newest = s;
+    }
+
+    private static int hop(long[] row, int cell) {
+        return (int) (row[cell >>> 5] >>> ((cell & 31) << 1)) & 3;
+    }
+
+    private static void setHop(long[] row, int cell, int dir) {
+        int shift = (cell & 31) << 1;
+        row[cell >>> 5] = row[cell >>> 5] & ~(3L << shift) | (long) dir << shift;
+    }
+
+    // one BFS from dst: a cell first reached from x gets "towards x" as its first step to dst, and keeps the lowest
+    // such direction over every neighbour one closer to dst, which is DistanceField's choice. cells outside dst's
+    // part keep whatever the slot held, nextStep never reads them
+    private void routesTo(int dst, long[] row) {
+        int head = 0, tail = 0;
+        level[dst] = 0;
+        queue[tail++] = dst;
+        while (head < tail) {
+            int cell = queue[head++];
+            int next = level[cell] + 1;
+            for (int dirs = open[cell]; dirs != 0; dirs &= dirs - 1) {
+                int dir = Integer.numberOfTrailingZeros(dirs);
+                int n = cell + delta[dir];
+                int back = dir ^ 1; // from n towards cell
+                if (level[n] < 0) {
+                    level[n] = next;
+                    queue[tail++] = n;
+                    setHop(row, n, back);
+                } else if (level[n] == next && back < hop(row, n)) {
+                    setHop(row, n, back);
+                }
+            }
+        }
+        for (int i = 0; i < tail; i++) level[queue[i]] = -1;
+    }
+
+    // a BFS tree per part, then an iterative DFS over each to number it: tin on the way down,
+    // tout = tin + subtree size
+    private void buildTree() {
+        parent = new int[cells];
+        tin = new int[cells];
+        tout = new int[cells];
+        Arrays.fill(parent, -2); // -2 = not in a tree yet
+        int[] stack = new int[cells], nextDir = new int[cells];
+        int clock = 0;
+
+        for (int root = 0; root < cells; root++) {
+            if (parent[root] != -2) continue;
+
+            parent[root] = -1;
+            int head = 0, tail = 0;
+            queue[tail++] = root;
+            while (head < tail) {
+                int cell = queue[head++];
+                for (int dirs = open[cell]; dirs != 0; dirs &= dirs - 1) {
+                    int n = cell + delta[Integer.numberOfTrailingZeros(dirs)];
+                    if (parent[n] != -2) continue;
+                    parent[n] = cell;
+                    queue[tail++] = n;
+                }
+            }
+
+            int top = 0;
+            stack[top++] = root;
+            tin[root] = clock++;
+            nextDir[root] = 0;
+            while (top > 0) {
+                int cell = stack[top - 1];
+                int dir = nextDir[cell]++;
+                if (dir == 4) {
+                    tout[cell] = clock;
+                    top--;
+                    continue;
+                }
+                if ((open[cell] >> dir & 1) == 0) continue;
+                int n = cell + delta[dir];
+                if (parent[n] == cell) {
+                    tin[n] = clock++;
+                    nextDir[n] = 0;
+                    stack[top++] = n;
+                }
+            }
+        }
+    }
+
+    // BFS over the part holding src, marks it with the given label
+    private void label(int src, int part) {
+        int head = 0, tail = 0;
+        component[src] = part;
+        queue[tail++] = src;
+        while (head < tail) {
+            int cell = queue[head++];
+            for (int dirs = open[cell]; dirs != 0; dirs &= dirs - 1) {
+                int n = cell + delta[Integer.numberOfTrailingZeros(dirs)];
+                if (component[n] >= 0) continue;
+                component[n] = part;
+                queue[tail++] = n;
+            }
+        }
+    }
+
+    // game mazes (pairs) and perfect mazes (tree), each under a budget that keeps every row and one that keeps
+    // only a few, so rows get evicted and rebuilt. a random walk of the player, every cell's step checked against
+    // a DistanceField from scratch; one rebuilt per step, so the table's tie-breaking is compared too
+    public static void main(String[] args) {
+        if (args.length == 0 || !args[0].equals("check")) {
+            System.err.println("usage: java RoutingTable check [mazes]");
+            return;
+        }
+        int mazes = args.length > 1 ? Integer.parseInt(args[1]) : 40;
+        SplittableRandom rnd = new SplittableRandom(1);
+        DistanceField field = new DistanceField();
+        long checked = 0, wrong = 0;
+        long start = System.nanoTime();
+        for (int m = 0; m < mazes; m++) {
+            int rows = 4 + rnd.nextInt(60), cols = 4 + rnd.nextInt(60);
+            MazeGrid maze = m % 2 == 0 ? MazeGenerator.generateMaze(rows, cols, m)
+                    : MazeGeneratorA.generateMaze(rows, cols, m);
+            int cells = rows * cols;
+            long smallBudget = (long) cells * PAIRS_BYTES_PER_CELL + 3 * (((cells + 31) >>> 5) * 8L + ROW_OVERHEAD);
+            for (long budget : new long[]{DEFAULT_BUDGET, smallBudget}) {
+                RoutingTable table = new RoutingTable(budget);
+                if (!table.ready(maze)) {
+                    System.out.printf("FAILED: %dx%d not covered with a %d byte budget%n", rows, cols, budget);
+                    System.exit(1);
+                }
+                int pr = rnd.nextInt(rows), pc = rnd.nextInt(cols);
+                for (int walk = 0; walk < 30; walk++) {
+                    field.rebuild(maze, pr, pc);
+                    for (int cell = 0; cell < cells; cell++) {
+                        checked++;
+                        int r = cell / cols, c = cell % cols;
+                        if (table.nextStep(maze, r, c, pr, pc) != field.nextStep(r, c)) wrong++;
+                    }
+                    // a step of the player, or now and then a jump back to somewhere it may have been
+                    int step = field.nextStep(rnd.nextInt(rows), rnd.nextInt(cols));
+                    if (rnd.nextInt(4) == 0 && step >= 0) {
+                        pr = step / cols;
+                        pc = step % cols;
+                    } else {
+                        int dir = rnd.nextInt(4);
+                        int nr = pr + (dir == 0 ? -1 : dir == 1 ? 1 : 0), nc = pc + (dir == 2 ? -1 : dir == 3 ? 1 : 0);
+                        if (nr >= 0 && nr < rows && nc >= 0 && nc < cols && !maze.isBlocked(pr, pc, nr, nc)) {
+                            pr = nr;
+                            pc = nc;
+                        }
+                    }
+                }
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d maze(s), %d step(s) checked, %d different from DistanceField, %.2f s%n",
+                mazes, checked, wrong, seconds);
+        if (wrong != 0) {
+            System.out.println("FAILED: the table must step exactly like DistanceField");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+// The numbers that decide how hard a game is, kept together so GameSimulator and MazeAnalyzer can try others.
+// the defaults are the values the game has always used, each can be overridden with a system property:
+//   -Dmaze.softLoops=12       one loop attempt per this many cells
+//   -Dmaze.loopChance=30      % chance per wall of a loop attempt to open it
+//   -Dmaze.corridorChance=35  % chance per wall along the two central corridors
+//   -Dmaze.enemyTicks=17      ticks between enemy steps (17 * 25ms = 425ms)
+//   -Dmaze.enemies=1          enemies at the start of a game, one more arrives with every expansion
+final class Tuning {
+    static final Tuning DEFAULT = new Tuning(12, 30, 35, 17, 1);
+
+    final int softLoopDivisor;
+    final int loopChance;
+    final int corridorChance;
+    final int enemyStepTicks;
+    final int enemies;
+
+    Tuning(int softLoopDivisor, int loopChance, int corridorChance, int enemyStepTicks, int enemies) {
+        this.softLoopDivisor = softLoopDivisor;
+        this.loopChance = loopChance;
+        this.corridorChance = corridorChance;
+        this.enemyStepTicks = Math.max(1, enemyStepTicks);
+        this.enemies = Math.max(1, enemies);
+    }
+
+    static Tuning fromProperties() {
+        return new Tuning(
+                Integer.getInteger("maze.softLoops", DEFAULT.softLoopDivisor),
+                Integer.getInteger("maze.loopChance", DEFAULT.loopChance),
+                Integer.getInteger("maze.corridorChance", DEFAULT.corridorChance),
+                Integer.getInteger("maze.enemyTicks", DEFAULT.enemyStepTicks),
+                Integer.getInteger("maze.enemies", DEFAULT.enemies));
+    }
+
+    // loop attempts for a maze of this size, none when the divisor is 0
+    int softLoops(int rows, int cols) {
+        return softLoopDivisor <= 0 ? 0 : rows * cols / softLoopDivisor;
+    }
+
+    @Override
+    public String toString() {
+        return "softLoops=" + softLoopDivisor + " loopChance=" + loopChance
+                + " corridorChance=" + corridorChance + " enemyTicks=" + enemyStepTicks + " enemies=" + enemies;
+    }
+}
@@ -0,0 +1,91 @@
+// disjoint-set used by the maze generators
+// union by rank keeps trees shallow and find uses path halving in a loop, so big grids can't overflow the stack
+// run: java -Xmx1g UnionFind stress [n]   unions n elements (default 100M) into one set along a chain, the order
+//                                        that builds the deepest trees without ranks, then checks there's one set
+//                                        left and nothing overflowed. exits with status 1 if anything is off
+public class UnionFind {
+    private final int[] parent;
+    private final byte[] rank; // tree height bound, never gets past ~31 so a byte is enough
+
+    public UnionFind(int size) {
+        parent = new int[size];
+        rank = new byte[size];
+        for (int i = 0; i < size; i++) {
+            parent[i] = i;
+        }
+    }
+
+    // back to every element in its own set, lets callers reuse the arrays
+    public void reset() {
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        java.util.Arrays.fill(rank, (byte) 0);
+    }
+
+    public int size() {
+        return parent.length;
+    }
+
+    // path halving: every node on the way up gets pointed at its grandparent
+    public int find(int p) {
+        while (parent[p] != p) {
+            parent[p] = parent[parent[p]];
+            p = parent[p];
+        }
+        return p;
+    }
+
+    public boolean connected(int p, int q) {
+        return find(p) == find(q);
+    }
+
+    // unite two elements if not already connected, the shorter tree goes under the taller one
+    public boolean union(int p, int q) {
+        int rootP = find(p);
+        int rootQ = find(q);
+
+        if (rootP == rootQ) {
+            return false;
+        }
+        if (rank[rootP] < rank[rootQ]) {
+            parent[rootP] = rootQ;
+        } else {
+            parent[rootQ] = rootP;
+            if (rank[rootP] == rank[rootQ]) rank[rootP]++;
+        }
+        return true;
+    }
+
+    public static void main(String[] args) {
+        if (args.length == 0 || !args[0].equals("stress")) {
+            System.err.println("usage: java UnionFind stress [n]");
+            return;
+        }
+        int n = args.length > 1 ? Integer.parseInt(args[1]) : 100_000_000;
+        long start = System.nanoTime();
+        try {
+            UnionFind uf = new UnionFind(n);
+            int components = n;
+            // a chain, without ranks every union would put the whole set under one new element, n levels deep
+            for (int i = 0; i + 1 < n; i++) {
+                if (uf.union(i + 1, i)) components--;
+            }
+            int root = uf.find(0);
+            long strays = 0;
+            for (int i = n - 1; i >= 0; i--) {
+                if (uf.find(i) != root) strays++;
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d elements, %d union(s), %d set(s) left, %d element(s) outside the root's, %.2f s%n",
+                    n, n - components, components, strays, seconds);
+            if (components != 1 || strays != 0) {
+                System.out.println("FAILED: expected a single set after n - 1 unions");
+                System.exit(1);
+            }
+        } catch (StackOverflowError e) {
+            System.out.println("FAILED: stack overflow");
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The tracked baseline: generation, pathfinding and printing at several sizes, every maze from MazeBenchmark's
+// fixed seed. gradle jmh runs it with the GC profiler, so next to ops/s it reports the allocation rate.
+// the maze code sits in the default package, which can't be named from here, so the cases come from
+// MazeBenchmark.jmhCases by reflection, once per trial
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MazeJmh {
+    @Param({"64", "256", "1024"})
+    int size;
+
+    private LongSupplier generateMazeA, generateMaze, bfsNextStep, printMaze;
+
+    @Setup
+    @SuppressWarnings("unchecked")
+    public void setup() throws ReflectiveOperationException {
+        Map<String, LongSupplier> cases = (Map<String, LongSupplier>) Class.forName("MazeBenchmark")
+                .getMethod("jmhCases", int.class).invoke(null, size);
+        generateMazeA = cases.get("MazeGeneratorA.generateMaze");
+        generateMaze = cases.get("MazeGenerator.generateMaze");
+        bfsNextStep = cases.get("PathFinder.bfs");
+        printMaze = cases.get("MazeGeneratorA.printMaze");
+    }
+
+    @Benchmark
+    public long generateMazeA() {
+        return generateMazeA.getAsLong();
+    }
+
+    // includes the loop, corridor and 2x2 passes on top of the perfect maze
+    @Benchmark
+    public long generateMaze() {
+        return generateMaze.getAsLong();
+    }
+
+    // worst case for the game: enemy in the far corner chasing a player at the start
+    @Benchmark
+    public long bfsNextStep() {
+        return bfsNextStep.getAsLong();
+    }
+
+    @Benchmark
+    public long printMaze() {
+        return printMaze.getAsLong();
+    }
+}